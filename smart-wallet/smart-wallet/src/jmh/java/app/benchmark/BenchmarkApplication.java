@@ -0,0 +1,90 @@
+package app.benchmark;
+
+import app.Application;
+import app.money.Money;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.wallet.model.Wallet;
+import app.wallet.service.WalletService;
+import app.web.dto.RegisterRequest;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One application context per benchmark JVM (JMH forks a fresh JVM for every benchmark)
+final class BenchmarkApplication {
+
+    private static final AtomicInteger USER_COUNTER = new AtomicInteger ();
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkApplication() {
+    }
+
+
+    static synchronized ConfigurableApplicationContext context() {
+
+        if (context == null) {
+            context = new SpringApplicationBuilder (Application.class)
+                    .profiles ("benchmark")
+                    .run ();
+        }
+        return context;
+    }
+
+
+    // Embedded Tomcat on a random port for the benchmarks which go through HTTP.
+    // Passed as command line arguments -> they win over the benchmark profile, extra ones as "--key=value"
+    static synchronized ConfigurableApplicationContext webContext(String... arguments) {
+
+        if (context == null) {
+            String[] defaults = {"--spring.main.web-application-type=servlet", "--server.port=0", "--management.server.port=-1"};
+            String[] all = new String[defaults.length + arguments.length];
+            System.arraycopy (defaults, 0, all, 0, defaults.length);
+            System.arraycopy (arguments, 0, all, defaults.length, arguments.length);
+
+            context = new SpringApplicationBuilder (Application.class)
+                    .profiles ("benchmark")
+                    .run (all);
+        }
+        return context;
+    }
+
+
+    static synchronized void close() {
+
+        if (context != null) {
+            context.close ();
+            context = null;
+        }
+    }
+
+
+    static <T> T bean(Class<T> type) {
+        return context ().getBean (type);
+    }
+
+
+    // Registers a new user and tops up the wallet with enough money for a whole benchmark run
+    static User registerFundedUser() {
+
+        User user = bean (UserService.class).register (RegisterRequest.builder ()
+                .username ("bench%06d".formatted (USER_COUNTER.incrementAndGet ()))
+                .password ("123456")
+                .country (Country.BULGARIA)
+                .build ());
+
+        bean (WalletService.class).topUp (walletIdOf (user), Money.ofMinor (100_000_000_000L));
+        return user;
+    }
+
+
+    static UUID walletIdOf(User user) {
+
+        Wallet wallet = bean (WalletService.class).getLatestByOwnerId (user.getId ());
+        return wallet.getId ();
+    }
+}
@@ -0,0 +1,71 @@
+package app.benchmark;
+
+import app.security.SessionCheckInterceptor;
+import app.user.model.User;
+import app.web.IndexController;
+import jakarta.servlet.http.HttpSession;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+
+// preHandle runs in front of every request of the web app, so its cost is paid per page view
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionCheckInterceptorBenchmark {
+
+    private SessionCheckInterceptor interceptor;
+    private HttpSession session;
+    private HandlerMethod handler;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+
+        interceptor = BenchmarkApplication.bean (SessionCheckInterceptor.class);
+        User user = BenchmarkApplication.registerFundedUser ();
+
+        session = new MockHttpSession ();
+        session.setAttribute ("user_id", user.getId ());
+
+        handler = new HandlerMethod (BenchmarkApplication.bean (IndexController.class),
+                IndexController.class.getMethod ("getHomePage", HttpSession.class));
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkApplication.close ();
+    }
+
+
+    @Benchmark
+    @Threads(1)
+    public boolean preHandle() throws Exception {
+        return handle ();
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public boolean preHandleConcurrent() throws Exception {
+        return handle ();
+    }
+
+
+    private boolean handle() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest ("GET", "/home");
+        request.setServletPath ("/home");
+        request.setSession (session);
+
+        return interceptor.preHandle (request, new MockHttpServletResponse (), handler);
+    }
+}
@@ -0,0 +1,68 @@
+package app.benchmark;
+
+import app.subscription.model.SubscriptionPeriod;
+import app.subscription.model.SubscriptionType;
+import app.subscription.service.SubscriptionService;
+import app.transaction.model.Transaction;
+import app.user.model.User;
+import app.web.dto.UpgradeRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Every thread upgrades its own user -> a user can only have one active subscription at a time
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubscriptionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        private SubscriptionService subscriptionService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            subscriptionService = BenchmarkApplication.bean (SubscriptionService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchmarkApplication.close ();
+        }
+    }
+
+
+    @State(Scope.Thread)
+    public static class Subscriber {
+
+        private User user;
+        private UpgradeRequest upgradeRequest;
+
+        @Setup(Level.Trial)
+        public void setUp(Application application) {
+
+            user = BenchmarkApplication.registerFundedUser ();
+            upgradeRequest = UpgradeRequest.builder ()
+                    .subscriptionPeriod (SubscriptionPeriod.MONTHLY)
+                    .walletId (BenchmarkApplication.walletIdOf (user))
+                    .build ();
+        }
+    }
+
+
+    @Benchmark
+    @Threads(1)
+    public Transaction upgrade(Application application, Subscriber subscriber) {
+        return application.subscriptionService.upgrade (subscriber.user, SubscriptionType.PREMIUM, subscriber.upgradeRequest);
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Transaction upgradeConcurrent(Application application, Subscriber subscriber) {
+        return application.subscriptionService.upgrade (subscriber.user, SubscriptionType.PREMIUM, subscriber.upgradeRequest);
+    }
+}
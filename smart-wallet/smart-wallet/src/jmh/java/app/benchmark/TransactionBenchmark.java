@@ -0,0 +1,59 @@
+package app.benchmark;
+
+import app.money.Money;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.service.TransactionService;
+import app.user.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+
+    private static final Money AMOUNT = Money.ofMinor (1000);
+
+    private TransactionService transactionService;
+    private User owner;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        transactionService = BenchmarkApplication.bean (TransactionService.class);
+        owner = BenchmarkApplication.registerFundedUser ();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkApplication.close ();
+    }
+
+
+    @Benchmark
+    @Threads(1)
+    public Transaction createNewTransaction() {
+        return create ();
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Transaction createNewTransactionConcurrent() {
+        return create ();
+    }
+
+
+    private Transaction create() {
+        return transactionService.createNewTransaction (owner, "Benchmark", owner.getUsername (), AMOUNT, AMOUNT,
+                TransactionType.DEPOSIT, TransactionStatus.SUCCEEDED, "Benchmark transaction", null);
+    }
+}
@@ -0,0 +1,92 @@
+package app.benchmark;
+
+import app.money.Money;
+import app.transaction.model.Transaction;
+import app.user.model.User;
+import app.wallet.service.WalletService;
+import app.web.dto.TransferRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// The "contended" variants run several threads against the same wallets -> they measure the row locks, not just the code path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalletBenchmark {
+
+    private static final Money AMOUNT = Money.ofMinor (1);
+
+    private WalletService walletService;
+    private User sender;
+    private UUID senderWalletId;
+    private TransferRequest transferRequest;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        walletService = BenchmarkApplication.bean (WalletService.class);
+        sender = BenchmarkApplication.registerFundedUser ();
+        senderWalletId = BenchmarkApplication.walletIdOf (sender);
+        User receiver = BenchmarkApplication.registerFundedUser ();
+
+        transferRequest = TransferRequest.builder ()
+                .fromWalledId (senderWalletId)
+                .toUsername (receiver.getUsername ())
+                .amount (AMOUNT.toBigDecimal ())
+                .build ();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkApplication.close ();
+    }
+
+
+    @Benchmark
+    @Threads(1)
+    public Transaction topUp() {
+        return walletService.topUp (senderWalletId, AMOUNT);
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Transaction topUpContended() {
+        return walletService.topUp (senderWalletId, AMOUNT);
+    }
+
+
+    @Benchmark
+    @Threads(1)
+    public Transaction charge() {
+        return walletService.charge (sender, senderWalletId, AMOUNT, "Benchmark charge");
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Transaction chargeContended() {
+        return walletService.charge (sender, senderWalletId, AMOUNT, "Benchmark charge");
+    }
+
+
+    @Benchmark
+    @Threads(1)
+    public Transaction transferFunds() {
+        return walletService.transferFunds (sender, transferRequest);
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Transaction transferFundsContended() {
+        return walletService.transferFunds (sender, transferRequest);
+    }
+}
@@ -0,0 +1,86 @@
+package app.benchmark;
+
+import app.user.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+// Platform vs virtual request threads: many clients load the dashboard (several JDBC round trips each) over real HTTP.
+// Throughput mode gives the rate (ok vs rejected by the concurrency limit), SampleTime mode the latency percentiles (p99).
+// The virtual variant only differs on JDK 21+, e.g. JAVA_HOME=<jdk21> mvn -Pbenchmarks -DskipTests verify -Djmh.args="WebThreadingBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+public class WebThreadingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private HttpClient client;
+    private URI home;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+
+        WebServerApplicationContext context = (WebServerApplicationContext) BenchmarkApplication.webContext (
+                "--spring.threads.virtual.enabled=" + virtualThreads);
+        String baseUrl = "http://localhost:" + context.getWebServer ().getPort ();
+        home = URI.create (baseUrl + "/home");
+
+        // One shared session -> every request passes the session check and renders the user's dashboard
+        client = HttpClient.newBuilder ()
+                .version (HttpClient.Version.HTTP_1_1)
+                .cookieHandler (new CookieManager ())
+                .build ();
+
+        User user = BenchmarkApplication.registerFundedUser ();
+        HttpRequest login = HttpRequest.newBuilder (URI.create (baseUrl + "/login"))
+                .header ("Content-Type", "application/x-www-form-urlencoded")
+                .POST (HttpRequest.BodyPublishers.ofString ("username=%s&password=123456".formatted (user.getUsername ())))
+                .build ();
+        client.send (login, HttpResponse.BodyHandlers.discarding ());
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkApplication.close ();
+    }
+
+
+    // Requests turned away by the concurrency limit are counted apart instead of failing the run
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Responses {
+
+        public long ok;
+
+        public long rejected;
+    }
+
+
+    @Benchmark
+    public int homePage(Responses responses) throws IOException, InterruptedException {
+
+        HttpResponse<Void> response = client.send (HttpRequest.newBuilder (home).GET ().build (), HttpResponse.BodyHandlers.discarding ());
+
+        switch (response.statusCode ()) {
+            case 200 -> responses.ok++;
+            case 503 -> responses.rejected++;
+            default -> throw new IllegalStateException ("GET /home answered with status [%d].".formatted (response.statusCode ()));
+        }
+        return response.statusCode ();
+    }
+}
@@ -2,6 +2,7 @@ package app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
@@ -10,8 +11,15 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableScheduling
 public class Application {
 
+    // Enough for every startup step of this application -> the whole boot timeline is kept
+    private static final int STARTUP_STEPS_CAPACITY = 10_000;
+
     public static void main(String[] args) {
-        SpringApplication.run(Application.class, args);
+
+        // Startup timeline (bean init, JPA bootstrap with the schema update, ...) -> GET /actuator/startup
+        SpringApplication application = new SpringApplication (Application.class);
+        application.setApplicationStartup (new BufferingApplicationStartup (STARTUP_STEPS_CAPACITY));
+        application.run (args);
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package app.config;
 
-import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import app.user.property.UserProperties;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -11,9 +13,17 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class BeanConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public PasswordEncoder passwordEncoder(UserProperties userProperties) {
 
 
-        return new BCryptPasswordEncoder ();
+        return new BCryptPasswordEncoder (userProperties.getPassword ().getStrength ());
+    }
+
+
+    // Every statement Hibernate prepares passes the counter -> per request budgets, see SqlStatementBudgetFilter
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounter() {
+
+        return properties -> properties.put (AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter ());
     }
 }
@@ -0,0 +1,83 @@
+package app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Virtual threads take away Tomcat's thread pool as the natural bound on concurrent requests.
+// This puts a bound back, sized from the connection pool, so a burst waits here for a short while
+// (or gets a 503) instead of piling up on the DataSource until connection timeouts fire.
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final Counter rejected;
+
+
+    @Autowired
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties concurrencyLimitProperties, DataSource dataSource, MeterRegistry meterRegistry) {
+
+        int limit = dataSource instanceof HikariDataSource hikari
+                ? hikari.getMaximumPoolSize () * concurrencyLimitProperties.getPermitsPerConnection ()
+                : concurrencyLimitProperties.getFallbackPermits ();
+
+        this.permits = new Semaphore (Math.max (1, limit), true);
+        this.acquireTimeoutMillis = concurrencyLimitProperties.getAcquireTimeout ().toMillis ();
+        this.rejected = meterRegistry.counter ("web.concurrency.rejected");
+        meterRegistry.gauge ("web.concurrency.available", permits, Semaphore::availablePermits);
+
+        log.info ("Limiting concurrent requests to [%d] on virtual threads.".formatted (limit));
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter (HttpServletRequest request) {
+
+        return StaticResources.isStaticPath (request);
+    }
+
+
+    @Override
+    protected void doFilterInternal (HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire (acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejected.increment ();
+            response.setHeader ("Retry-After", "1");
+            response.sendError (HttpStatus.SERVICE_UNAVAILABLE.value (), "Server is busy, please try again shortly.");
+            return;
+        }
+
+        try {
+            filterChain.doFilter (request, response);
+        } finally {
+            permits.release ();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "domain.web.properties.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    // Requests in flight per pooled connection -> a request also spends time outside JDBC (templates, hashing, ...)
+    private int permitsPerConnection = 2;
+
+    // Used when the DataSource isn't a Hikari pool and its size is unknown
+    private int fallbackPermits = 20;
+
+    // How long a request may wait for a permit before it is turned away with 503
+    private Duration acquireTimeout = Duration.ofSeconds (1);
+}
@@ -0,0 +1,73 @@
+package app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Counts the statements of a whole request, including the session check interceptor that runs before the handler,
+// and attributes them to the handler method the request was mapped to. Going over budget is logged, never rejected.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "domain.web.properties.statement-budget", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    private final SqlStatementBudgetProperties sqlStatementBudgetProperties;
+    private final SqlStatementStatistics sqlStatementStatistics;
+
+
+    @Autowired
+    public SqlStatementBudgetFilter(SqlStatementBudgetProperties sqlStatementBudgetProperties, SqlStatementStatistics sqlStatementStatistics) {
+        this.sqlStatementBudgetProperties = sqlStatementBudgetProperties;
+        this.sqlStatementStatistics = sqlStatementStatistics;
+    }
+
+
+    @Override
+    protected boolean shouldNotFilter (HttpServletRequest request) {
+
+        return StaticResources.isStaticPath (request);
+    }
+
+
+    @Override
+    protected void doFilterInternal (HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        SqlStatementCounter.Scope scope = SqlStatementCounter.start ();
+        try {
+            filterChain.doFilter (request, response);
+        } finally {
+            scope.close ();
+            record (request, scope.getStatements ());
+        }
+    }
+
+
+    private void record (HttpServletRequest request, long statements) {
+
+        // Set by the DispatcherServlet once the request is mapped -> absent for 404s and resource handlers
+        if (!(request.getAttribute (HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+
+        String handler = handlerMethod.getBeanType ().getSimpleName () + "#" + handlerMethod.getMethod ().getName ();
+        int budget = sqlStatementBudgetProperties.budgetOf (handler);
+        boolean overBudget = statements > budget;
+
+        sqlStatementStatistics.record (handler, statements, overBudget);
+
+        if (overBudget) {
+            log.warn ("Request [%s %s] handled by [%s] ran [%d] SQL statements, budget is [%d]."
+                    .formatted (request.getMethod (), request.getRequestURI (), handler, statements, budget));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package app.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "domain.web.properties.statement-budget")
+public class SqlStatementBudgetProperties {
+
+    private boolean enabled = true;
+
+    // A request running more SQL statements than this is logged as a warning
+    private int maxStatements = 10;
+
+    // Per handler overrides, keyed like "TransferController#initiateTransfer"
+    private Map<String, Integer> handlers = new HashMap<> ();
+
+    // Handlers listed by the sqlstatements endpoint
+    private int topOffenders = 10;
+
+
+    public int budgetOf (String handler) {
+        return handlers.getOrDefault (handler, maxStatements);
+    }
+}
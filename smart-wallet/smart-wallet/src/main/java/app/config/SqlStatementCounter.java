@@ -0,0 +1,57 @@
+package app.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL statements Hibernate prepares on the current thread while a scope is open.
+// Scopes nest (a test around a MockMvc call around the request filter), every open scope sees every statement.
+// Statements run on other threads (lanes, hashing pool) or through plain JDBC aren't counted.
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<> ();
+
+
+    public static Scope start () {
+
+        Scope scope = new Scope (CURRENT.get ());
+        CURRENT.set (scope);
+        return scope;
+    }
+
+
+    @Override
+    public String inspect (String sql) {
+
+        for (Scope scope = CURRENT.get (); scope != null; scope = scope.parent) {
+            scope.statements++;
+        }
+        return sql;
+    }
+
+
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private long statements;
+
+        private Scope (Scope parent) {
+            this.parent = parent;
+        }
+
+
+        public long getStatements () {
+            return statements;
+        }
+
+
+        @Override
+        public void close () {
+
+            if (parent == null) {
+                CURRENT.remove ();
+            } else {
+                CURRENT.set (parent);
+            }
+        }
+    }
+}
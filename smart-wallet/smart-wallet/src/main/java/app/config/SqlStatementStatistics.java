@@ -0,0 +1,70 @@
+package app.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Statements per request, aggregated by handler method since startup
+@Component
+public class SqlStatementStatistics {
+
+    private final Map<String, HandlerStatistics> byHandler = new ConcurrentHashMap<> ();
+
+
+    public void record (String handler, long statements, boolean overBudget) {
+
+        HandlerStatistics statistics = byHandler.computeIfAbsent (handler, key -> new HandlerStatistics ());
+        statistics.requests.increment ();
+        statistics.statements.add (statements);
+        statistics.max.accumulate (statements);
+        if (overBudget) {
+            statistics.overBudget.increment ();
+        }
+    }
+
+
+    // Worst single request first, then the highest average
+    public List<Map<String, Object>> topOffenders (int limit) {
+
+        return byHandler.entrySet ().stream ()
+                .map (entry -> describe (entry.getKey (), entry.getValue ()))
+                .sorted (Comparator.<Map<String, Object>>comparingLong (handler -> (long) handler.get ("max")).reversed ()
+                        .thenComparing (Comparator.<Map<String, Object>>comparingDouble (handler -> (double) handler.get ("average")).reversed ()))
+                .limit (limit)
+                .toList ();
+    }
+
+
+    public void reset () {
+        byHandler.clear ();
+    }
+
+
+    private static Map<String, Object> describe (String handler, HandlerStatistics statistics) {
+
+        long requests = statistics.requests.sum ();
+        Map<String, Object> description = new LinkedHashMap<> ();
+        description.put ("handler", handler);
+        description.put ("requests", requests);
+        description.put ("average", requests == 0 ? 0.0 : (double) statistics.statements.sum () / requests);
+        description.put ("max", statistics.max.get ());
+        description.put ("overBudget", statistics.overBudget.sum ());
+        return description;
+    }
+
+
+
+    private static final class HandlerStatistics {
+
+        private final LongAdder requests = new LongAdder ();
+        private final LongAdder statements = new LongAdder ();
+        private final LongAccumulator max = new LongAccumulator (Math::max, 0);
+        private final LongAdder overBudget = new LongAdder ();
+    }
+}
@@ -0,0 +1,39 @@
+package app.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Management port only:
+// GET    /actuator/sqlstatements -> handlers with the most SQL statements per request
+// DELETE /actuator/sqlstatements -> start counting afresh (e.g. after a deploy)
+@Component
+@Endpoint(id = "sqlstatements")
+public class SqlStatementsEndpoint {
+
+    private final SqlStatementStatistics sqlStatementStatistics;
+    private final SqlStatementBudgetProperties sqlStatementBudgetProperties;
+
+    @Autowired
+    public SqlStatementsEndpoint(SqlStatementStatistics sqlStatementStatistics, SqlStatementBudgetProperties sqlStatementBudgetProperties) {
+        this.sqlStatementStatistics = sqlStatementStatistics;
+        this.sqlStatementBudgetProperties = sqlStatementBudgetProperties;
+    }
+
+
+    @ReadOperation
+    public List<Map<String, Object>> topOffenders () {
+        return sqlStatementStatistics.topOffenders (sqlStatementBudgetProperties.getTopOffenders ());
+    }
+
+
+    @DeleteOperation
+    public void reset () {
+        sqlStatementStatistics.reset ();
+    }
+}
@@ -0,0 +1,20 @@
+package app.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.experimental.UtilityClass;
+
+import java.util.List;
+
+// Folders under classpath:/static served by the resource handlers -> requests for them never touch the database
+@UtilityClass
+public class StaticResources {
+
+    public static final List<String> FOLDERS = List.of ("css", "images");
+
+
+    public static boolean isStaticPath (HttpServletRequest request) {
+
+        String path = request.getRequestURI ().substring (request.getContextPath ().length ());
+        return FOLDERS.stream ().anyMatch (folder -> path.startsWith ("/%s/".formatted (folder)));
+    }
+}
@@ -2,13 +2,24 @@ package app.config;
 
 import app.security.SessionCheckInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
 
 @Configuration
 public class WebMvcConfiguration implements WebMvcConfigurer {
 
+    // A fingerprinted URL never changes content -> browsers keep it for a year without revalidating
+    private static final Duration STATIC_MAX_AGE = Duration.ofDays (365);
+
 
     @Autowired
     private SessionCheckInterceptor interceptor;
@@ -20,6 +31,31 @@ public class WebMvcConfiguration implements WebMvcConfigurer {
         // ** -> всичко след
         registry.addInterceptor (interceptor)
                 .addPathPatterns ("/**")
-                .excludePathPatterns ("/css/**", "/images/**");
+                .excludePathPatterns ("/css/**", "/images/**", "/actuator/**");
+    }
+
+
+    // /css/common.css is linked as /css/common-<md5 of content>.css (see the @{...} links in the templates),
+    // url(...) references inside stylesheets are rewritten the same way.
+    // The *.gz variants generated at build time are served to clients accepting gzip.
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+
+        for (String folder : StaticResources.FOLDERS) {
+            registry.addResourceHandler ("/%s/**".formatted (folder))
+                    .addResourceLocations ("classpath:/static/%s/".formatted (folder))
+                    .setCacheControl (CacheControl.maxAge (STATIC_MAX_AGE).cachePublic ().immutable ())
+                    .resourceChain (true)
+                    .addResolver (new EncodedResourceResolver ())
+                    .addResolver (new VersionResourceResolver ().addContentVersionStrategy ("/**"));
+        }
+    }
+
+
+    // Rewrites @{/css/...} and @{/images/...} links to their fingerprinted URLs while templates are rendered
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+
+        return new ResourceUrlEncodingFilter ();
     }
 }
@@ -0,0 +1,41 @@
+package app.idempotency.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// First outcome of a client supplied idempotency key. The key is claimed (transactionId still null)
+// before the operation runs, so a retry arriving on another instance can't run it a second time.
+@Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_scope_key", columnNames = {"scope_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_created_on", columnList = "created_on"))
+@Getter
+@Builder
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    // The user who sent the request
+    @Column(nullable = false)
+    private UUID scopeId;
+
+    @Column(nullable = false, length = 64)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotentOperation operation;
+
+    private UUID transactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+}
@@ -0,0 +1,5 @@
+package app.idempotency.model;
+
+public enum IdempotentOperation {
+    TRANSFER, UPGRADE
+}
@@ -0,0 +1,27 @@
+package app.idempotency.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "domain.idempotency.properties")
+public class IdempotencyProperties {
+
+    // Recent keys answered from memory, older ones from the table
+    private long cacheMaxSize = 100_000;
+
+    // How long a key is remembered at all -> retries later than this run the operation again
+    private Duration retention = Duration.ofHours (24);
+
+    // A claim still without a result after this long belongs to a request that died mid way (e.g. instance restart)
+    // -> the next retry takes the key over. Set above the slowest transfer (3 attempts of a 50s lock wait), so a retry
+    // normally gets 409 while the first request still runs. Should it take over anyway, the first request can no longer
+    // complete the claim and rolls back, so the operation is never applied twice.
+    private Duration pendingLease = Duration.ofMinutes (5);
+}
@@ -0,0 +1,38 @@
+package app.idempotency.repository;
+
+import app.idempotency.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, UUID> {
+
+    Optional<IdempotencyRecord> findByScopeIdAndIdempotencyKey (UUID scopeId, String idempotencyKey);
+
+
+    // Joins the caller's transaction. Only while still pending -> a claim taken over by a retry (deleted) isn't completed
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.transactionId = :transactionId WHERE r.id = :id AND r.transactionId IS NULL")
+    int complete (UUID id, UUID transactionId);
+
+
+    // Only while still pending -> a claim completed or taken over in the meantime is left alone
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.transactionId IS NULL")
+    int deletePending (UUID id);
+
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdOn < :before")
+    int deleteAllCreatedBefore (LocalDateTime before);
+}
@@ -0,0 +1,217 @@
+package app.idempotency.service;
+
+import app.exception.DomainException;
+import app.idempotency.model.IdempotencyRecord;
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.property.IdempotencyProperties;
+import app.idempotency.repository.IdempotencyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Runs an operation at most once per (scope, key). A repeated key gets the first result (the transaction id)
+// without touching wallets or writing anything: from memory for recent keys, otherwise with one read of the table.
+// Retries racing the first request wait for its outcome instead of running next to it.
+// The claim is completed by completeClaim inside the operation's own transaction -> the money movement and the
+// recorded result commit or roll back together, a pending claim always means nothing was committed for the key.
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    // The claim of the action running on this thread, see completeClaim
+    private static final ThreadLocal<ActiveClaim> ACTIVE_CLAIM = new ThreadLocal<> ();
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final IdempotencyProperties idempotencyProperties;
+    private final Cache<String, CompletableFuture<UUID>> results;
+
+
+    @Autowired
+    public IdempotencyService(IdempotencyRepository idempotencyRepository, IdempotencyProperties idempotencyProperties) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.idempotencyProperties = idempotencyProperties;
+        this.results = Caffeine.newBuilder ()
+                .maximumSize (idempotencyProperties.getCacheMaxSize ())
+                .expireAfterWrite (idempotencyProperties.getRetention ())
+                .build ();
+    }
+
+
+
+    // Without a key -> the operation just runs
+    public UUID execute (UUID scopeId, String idempotencyKey, IdempotentOperation operation, Supplier<UUID> action) {
+
+        if (idempotencyKey == null || idempotencyKey.isBlank ()) {
+            return action.get ();
+        }
+        if (idempotencyKey.length () > MAX_KEY_LENGTH) {
+            throw new DomainException ("Idempotency key can't be longer than %d characters.".formatted (MAX_KEY_LENGTH), HttpStatus.BAD_REQUEST);
+        }
+
+        // A key reused for another operation misses here and is refused by the table lookup
+        String cacheKey = "%s:%s:%s".formatted (scopeId, operation, idempotencyKey);
+        CompletableFuture<UUID> result = new CompletableFuture<> ();
+        CompletableFuture<UUID> first = results.asMap ().putIfAbsent (cacheKey, result);
+
+        if (first != null) {
+            return await (first);
+        }
+
+        try {
+            UUID transactionId = runOnce (scopeId, idempotencyKey, operation, action);
+            result.complete (transactionId);
+            return transactionId;
+        } catch (RuntimeException e) {
+            // Nothing was recorded -> the key stays usable for the next retry
+            results.invalidate (cacheKey);
+            result.completeExceptionally (e);
+            throw e;
+        }
+    }
+
+
+    // Called by the operation inside its transaction, right after its transaction record is written.
+    // No claim on this thread (no key, scheduled renewals) -> nothing to do.
+    public void completeClaim (UUID transactionId) {
+
+        ActiveClaim claim = ACTIVE_CLAIM.get ();
+        if (claim == null) {
+            return;
+        }
+
+        // 0 -> the claim was taken over by a retry, which runs the operation itself -> this run has to roll back
+        if (idempotencyRepository.complete (claim.id, transactionId) == 0) {
+            throw new DomainException ("Request with idempotency key [%s] was taken over by a retry.".formatted (claim.idempotencyKey), HttpStatus.CONFLICT);
+        }
+        claim.completed = true;
+    }
+
+
+    public int deleteExpired () {
+        return idempotencyRepository.deleteAllCreatedBefore (LocalDateTime.now ().minus (idempotencyProperties.getRetention ()));
+    }
+
+
+
+    private UUID runOnce (UUID scopeId, String idempotencyKey, IdempotentOperation operation, Supplier<UUID> action) {
+
+        Optional<IdempotencyRecord> existing = idempotencyRepository.findByScopeIdAndIdempotencyKey (scopeId, idempotencyKey);
+        if (existing.isPresent () && !isAbandoned (existing.get ())) {
+            return recordedResult (existing.get (), operation);
+        }
+        if (existing.isPresent ()) {
+            takeOver (existing.get ());
+        }
+
+        IdempotencyRecord claim;
+        try {
+            claim = idempotencyRepository.saveAndFlush (IdempotencyRecord.builder ()
+                    .scopeId (scopeId)
+                    .idempotencyKey (idempotencyKey)
+                    .operation (operation)
+                    .createdOn (LocalDateTime.now ())
+                    .build ());
+        } catch (DataIntegrityViolationException e) {
+            // Claimed by a request on another instance in the meantime
+            throw inProgress (idempotencyKey);
+        }
+
+        ActiveClaim activeClaim = new ActiveClaim (claim.getId (), idempotencyKey);
+        UUID transactionId;
+        ACTIVE_CLAIM.set (activeClaim);
+        try {
+            transactionId = action.get ();
+        } catch (RuntimeException e) {
+            // Rolled back together with the operation -> still pending, the key stays usable for the next retry
+            idempotencyRepository.deletePending (claim.getId ());
+            throw e;
+        } finally {
+            ACTIVE_CLAIM.remove ();
+        }
+
+        // Only for operations without a transaction of their own (nothing else writes) -> recorded afterwards
+        if (!activeClaim.completed && idempotencyRepository.complete (claim.getId (), transactionId) == 0) {
+            throw new DomainException ("Request with idempotency key [%s] was taken over by a retry.".formatted (idempotencyKey), HttpStatus.CONFLICT);
+        }
+
+        return transactionId;
+    }
+
+
+    private boolean isAbandoned (IdempotencyRecord record) {
+
+        return record.getTransactionId () == null
+                && record.getCreatedOn ().isBefore (LocalDateTime.now ().minus (idempotencyProperties.getPendingLease ()));
+    }
+
+
+    private void takeOver (IdempotencyRecord abandoned) {
+
+        // Completed or taken over by another retry in the meantime -> that one's result is the answer
+        if (idempotencyRepository.deletePending (abandoned.getId ()) == 0) {
+            throw inProgress (abandoned.getIdempotencyKey ());
+        }
+
+        log.warn ("Idempotency key [%s] was claimed on %s and never completed, taking it over."
+                .formatted (abandoned.getIdempotencyKey (), abandoned.getCreatedOn ()));
+    }
+
+
+    private UUID recordedResult (IdempotencyRecord record, IdempotentOperation operation) {
+
+        if (record.getOperation () != operation) {
+            throw new DomainException ("Idempotency key [%s] was already used for a %s."
+                    .formatted (record.getIdempotencyKey (), record.getOperation ()), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        if (record.getTransactionId () == null) {
+            throw inProgress (record.getIdempotencyKey ());
+        }
+
+        log.info ("Repeated idempotency key [%s], returning transaction [%s].".formatted (record.getIdempotencyKey (), record.getTransactionId ()));
+        return record.getTransactionId ();
+    }
+
+
+    private static final class ActiveClaim {
+
+        private final UUID id;
+        private final String idempotencyKey;
+        private boolean completed;
+
+        private ActiveClaim (UUID id, String idempotencyKey) {
+            this.id = id;
+            this.idempotencyKey = idempotencyKey;
+        }
+    }
+
+
+    private static DomainException inProgress (String idempotencyKey) {
+        return new DomainException ("Request with idempotency key [%s] is still being processed.".formatted (idempotencyKey), HttpStatus.CONFLICT);
+    }
+
+
+    private static UUID await (CompletableFuture<UUID> first) {
+
+        try {
+            return first.join ();
+        } catch (CompletionException e) {
+            if (e.getCause () instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package app.money;
+
+import app.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+// Immutable amount of money stored as a long number of minor units (cents for EUR).
+// Arithmetic is plain long math with explicit overflow checks, BigDecimal is only used at the edges (forms, JSON, JDBC).
+public final class Money implements Comparable<Money> {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance ("EUR");
+
+    public static final Money ZERO = new Money (0, DEFAULT_CURRENCY);
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    private final long minorUnits;
+    private final Currency currency;
+
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+
+    public static Money ofMinor (long minorUnits, Currency currency) {
+
+        Objects.requireNonNull (currency, "currency");
+        return minorUnits == 0 && currency == DEFAULT_CURRENCY ? ZERO : new Money (minorUnits, currency);
+    }
+
+
+    public static Money ofMinor (long minorUnits) {
+        return ofMinor (minorUnits, DEFAULT_CURRENCY);
+    }
+
+
+    // Amounts with more decimals than the currency has (e.g. 1.005 EUR) are rejected, never rounded
+    public static Money of (BigDecimal amount, Currency currency) {
+
+        try {
+            return ofMinor (amount.setScale (fractionDigits (currency), RoundingMode.UNNECESSARY)
+                    .unscaledValue ()
+                    .longValueExact (), currency);
+        } catch (ArithmeticException e) {
+            throw new DomainException ("Invalid amount [%s] for currency [%s].".formatted (amount.toPlainString (), currency), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+
+    public static Money of (BigDecimal amount) {
+        return of (amount, DEFAULT_CURRENCY);
+    }
+
+
+
+    public Money plus (Money other) {
+
+        requireSameCurrency (other);
+        try {
+            return ofMinor (Math.addExact (minorUnits, other.minorUnits), currency);
+        } catch (ArithmeticException e) {
+            throw overflow ();
+        }
+    }
+
+
+    public Money minus (Money other) {
+
+        requireSameCurrency (other);
+        try {
+            return ofMinor (Math.subtractExact (minorUnits, other.minorUnits), currency);
+        } catch (ArithmeticException e) {
+            throw overflow ();
+        }
+    }
+
+
+    public boolean isLessThan (Money other) {
+
+        requireSameCurrency (other);
+        return minorUnits < other.minorUnits;
+    }
+
+
+    public int signum () {
+        return Long.signum (minorUnits);
+    }
+
+
+    public long getMinorUnits () {
+        return minorUnits;
+    }
+
+
+    public Currency getCurrency () {
+        return currency;
+    }
+
+
+    public BigDecimal toBigDecimal () {
+        return BigDecimal.valueOf (minorUnits, fractionDigits (currency));
+    }
+
+
+
+    @Override
+    public int compareTo (Money other) {
+
+        requireSameCurrency (other);
+        return Long.compare (minorUnits, other.minorUnits);
+    }
+
+
+    @Override
+    public boolean equals (Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money money)) {
+            return false;
+        }
+        return minorUnits == money.minorUnits && currency.equals (money.currency);
+    }
+
+
+    @Override
+    public int hashCode () {
+        return Long.hashCode (minorUnits) * 31 + currency.hashCode ();
+    }
+
+
+    // Plain amount without the currency (e.g. "20.00") -> views and descriptions append the currency themselves
+    @Override
+    public String toString () {
+
+        int digits = fractionDigits (currency);
+        if (digits == 0) {
+            return Long.toString (minorUnits);
+        }
+
+        long scale = POWERS_OF_TEN[digits];
+        long whole = Math.abs (minorUnits / scale);
+        long fraction = Math.abs (minorUnits % scale);
+
+        StringBuilder text = new StringBuilder (24);
+        if (minorUnits < 0) {
+            text.append ('-');
+        }
+        text.append (whole).append ('.');
+
+        String fractionText = Long.toString (fraction);
+        for (int i = fractionText.length (); i < digits; i++) {
+            text.append ('0');
+        }
+        return text.append (fractionText).toString ();
+    }
+
+
+
+    private void requireSameCurrency (Money other) {
+
+        if (!currency.equals (other.currency)) {
+            throw new DomainException ("Currency mismatch [%s] and [%s].".formatted (currency, other.currency), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+
+    private DomainException overflow () {
+        return new DomainException ("Amount is out of range.", HttpStatus.BAD_REQUEST);
+    }
+
+
+    private static int fractionDigits (Currency currency) {
+        return Math.max (0, currency.getDefaultFractionDigits ());
+    }
+}
@@ -0,0 +1,22 @@
+package app.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Keeps the existing DECIMAL columns. Every wallet, transaction and subscription amount in this application is
+// in the default currency (the separate currency columns always hold EUR), so only the amount is stored.
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn (Money money) {
+        return money == null ? null : money.toBigDecimal ();
+    }
+
+    @Override
+    public Money convertToEntityAttribute (BigDecimal amount) {
+        return amount == null ? null : Money.of (amount);
+    }
+}
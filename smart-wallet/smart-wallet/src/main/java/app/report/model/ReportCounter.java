@@ -0,0 +1,26 @@
+package app.report.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Running count and volume (in minor units) of one report bucket, safe to update from many request threads
+public class ReportCounter {
+
+    private final LongAdder count = new LongAdder ();
+    private final LongAdder volume = new LongAdder ();
+
+
+    public void add (long transactions, long minorUnits) {
+        count.add (transactions);
+        volume.add (minorUnits);
+    }
+
+
+    public long getCount () {
+        return count.sum ();
+    }
+
+
+    public long getVolume () {
+        return volume.sum ();
+    }
+}
@@ -0,0 +1,16 @@
+package app.report.model;
+
+import app.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ReportEntry {
+
+    private final String label;
+
+    private final long count;
+
+    private final Money volume;
+}
@@ -0,0 +1,36 @@
+package app.report.model;
+
+import app.money.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Point in time view of the transaction counters rendered on the reports page
+@Getter
+@Builder
+public class TransactionReport {
+
+    private final long totalCount;
+
+    private final Money totalVolume;
+
+    private final long deposits;
+
+    private final long withdrawals;
+
+    private final long succeeded;
+
+    private final long failed;
+
+    private final List<ReportEntry> lastDays;
+
+    private final List<ReportEntry> byCurrency;
+
+    private final List<ReportEntry> byFailureReason;
+
+    private final List<ReportEntry> byCountry;
+
+    private final LocalDateTime generatedOn;
+}
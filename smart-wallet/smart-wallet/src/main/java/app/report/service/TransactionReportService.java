@@ -0,0 +1,212 @@
+package app.report.service;
+
+import app.money.Money;
+import app.report.model.ReportCounter;
+import app.report.model.ReportEntry;
+import app.report.model.TransactionReport;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionAggregate;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.repository.TransactionRepository;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Running transaction aggregates for the admin reports page.
+// Rebuilt once from the table at startup, afterwards every committed transaction is added as it is created,
+// so rendering the page never scans the transaction table.
+// The counters live in this instance's memory and only see the transactions committed here -> with several
+// instances each one reports the history up to its own start plus its own traffic. Exact totals need a single
+// instance (or a restart, which rebuilds from the table).
+@Slf4j
+@Service
+public class TransactionReportService implements SmartInitializingSingleton {
+
+    private static final int REPORTED_DAYS = 7;
+    private static final int REPORTED_ENTRIES = 5;
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final ApplicationStartup applicationStartup;
+
+    // Country can't be edited, so it is cached for good -> recording a transaction doesn't load its owner
+    private final Cache<UUID, String> countries = Caffeine.newBuilder ()
+            .maximumSize (100_000)
+            .build ();
+
+    private final ReportCounter total = new ReportCounter ();
+    private final Map<LocalDate, ReportCounter> byDay = new ConcurrentHashMap<> ();
+    private final Map<TransactionType, ReportCounter> byType = new ConcurrentHashMap<> ();
+    private final Map<TransactionStatus, ReportCounter> byStatus = new ConcurrentHashMap<> ();
+    private final Map<Currency, ReportCounter> byCurrency = new ConcurrentHashMap<> ();
+    private final Map<String, ReportCounter> byFailureReason = new ConcurrentHashMap<> ();
+    private final Map<String, ReportCounter> byCountry = new ConcurrentHashMap<> ();
+
+
+    @Autowired
+    public TransactionReportService(TransactionRepository transactionRepository, UserRepository userRepository,
+                                    ApplicationStartup applicationStartup) {
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.applicationStartup = applicationStartup;
+    }
+
+
+
+    // Runs before the web server accepts requests, so no transaction can slip between the rebuild and live recording
+    @Override
+    public void afterSingletonsInstantiated () {
+
+        long start = System.currentTimeMillis ();
+        StartupStep step = applicationStartup.start ("app.report.rebuild");
+        List<TransactionAggregate> aggregates = transactionRepository.aggregateAll ();
+
+        for (TransactionAggregate aggregate : aggregates) {
+            add (aggregate.getDay (), aggregate.getType (), aggregate.getStatus (), aggregate.getCurrency (), aggregate.getFailureReason (),
+                    aggregate.getCountry () == null ? UNKNOWN : aggregate.getCountry ().name (),
+                    aggregate.getCount (), aggregate.getVolume ().getMinorUnits ());
+        }
+
+        step.tag ("buckets", String.valueOf (aggregates.size ())).end ();
+        log.info ("Rebuilt transaction report from [%d] buckets, [%d] transactions in [%d] ms."
+                .formatted (aggregates.size (), total.getCount (), System.currentTimeMillis () - start));
+    }
+
+
+
+    // Counted only once the transaction holding the record has committed.
+    // The owner's country is looked up now, inside the transaction -> the post commit step only touches memory
+    // and can't fail the money movement that has already been committed.
+    public void record (Transaction transaction) {
+
+        String country = countryOf (transaction.getOwner ());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit () {
+                    try {
+                        apply (transaction, country);
+                    } catch (RuntimeException e) {
+                        log.error ("Transaction [%s] couldn't be added to the report.".formatted (transaction.getId ()), e);
+                    }
+                }
+            });
+            return;
+        }
+
+        apply (transaction, country);
+    }
+
+
+
+    public TransactionReport getReport () {
+
+        LocalDate today = LocalDate.now ();
+        List<ReportEntry> lastDays = new ArrayList<> (REPORTED_DAYS);
+        for (int i = 0; i < REPORTED_DAYS; i++) {
+            LocalDate day = today.minusDays (i);
+            lastDays.add (toEntry (day.toString (), byDay.get (day)));
+        }
+
+        return TransactionReport.builder ()
+                .totalCount (total.getCount ())
+                .totalVolume (Money.ofMinor (total.getVolume ()))
+                .deposits (count (byType.get (TransactionType.DEPOSIT)))
+                .withdrawals (count (byType.get (TransactionType.WITHDRAWAL)))
+                .succeeded (count (byStatus.get (TransactionStatus.SUCCEEDED)))
+                .failed (count (byStatus.get (TransactionStatus.FAILED)))
+                .lastDays (lastDays)
+                .byCurrency (toEntries (byCurrency))
+                .byFailureReason (toEntries (byFailureReason))
+                .byCountry (toEntries (byCountry))
+                .generatedOn (LocalDateTime.now ())
+                .build ();
+    }
+
+
+
+    private void apply (Transaction transaction, String country) {
+
+        add (transaction.getCreatedOn ().toLocalDate (), transaction.getType (), transaction.getStatus (), transaction.getCurrency (),
+                transaction.getFailureReason (), country, 1, transaction.getAmount ().getMinorUnits ());
+    }
+
+
+    private void add (LocalDate day, TransactionType type, TransactionStatus status, Currency currency, String failureReason, String country,
+                      long count, long volume) {
+
+        total.add (count, volume);
+        byDay.computeIfAbsent (day, key -> new ReportCounter ()).add (count, volume);
+        byType.computeIfAbsent (type, key -> new ReportCounter ()).add (count, volume);
+        byStatus.computeIfAbsent (status, key -> new ReportCounter ()).add (count, volume);
+        byCurrency.computeIfAbsent (currency, key -> new ReportCounter ()).add (count, volume);
+        byCountry.computeIfAbsent (country, key -> new ReportCounter ()).add (count, volume);
+
+        if (failureReason != null) {
+            byFailureReason.computeIfAbsent (failureReason, key -> new ReportCounter ()).add (count, volume);
+        }
+    }
+
+
+    private String countryOf (User owner) {
+
+        if (owner == null) {
+            return UNKNOWN;
+        }
+        if (Hibernate.isInitialized (owner)) {
+            return owner.getCountry () == null ? UNKNOWN : owner.getCountry ().name ();
+        }
+
+        // Lazy reference (e.g. top ups) -> id only, the country comes from the cache or one small query
+        return countries.get (owner.getId (), userId -> userRepository.findCountryById (userId)
+                .map (Country::name)
+                .orElse (UNKNOWN));
+    }
+
+
+    private <K> List<ReportEntry> toEntries (Map<K, ReportCounter> counters) {
+
+        return counters.entrySet ().stream ()
+                .map (entry -> toEntry (entry.getKey ().toString (), entry.getValue ()))
+                .sorted (Comparator.comparingLong (ReportEntry::getCount).reversed ())
+                .limit (REPORTED_ENTRIES)
+                .toList ();
+    }
+
+
+    private ReportEntry toEntry (String label, ReportCounter counter) {
+
+        return counter == null
+                ? new ReportEntry (label, 0, Money.ZERO)
+                : new ReportEntry (label, counter.getCount (), Money.ofMinor (counter.getVolume ()));
+    }
+
+
+    private long count (ReportCounter counter) {
+        return counter == null ? 0 : counter.getCount ();
+    }
+}
@@ -0,0 +1,31 @@
+package app.scheduler;
+
+import app.idempotency.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class IdempotencyCleanupScheduler {
+
+    private final IdempotencyService idempotencyService;
+
+    @Autowired
+    public IdempotencyCleanupScheduler(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+
+    // Keys past their retention are of no use any more -> keeps the table as small as the retention window
+    @Scheduled(cron = "0 30 * * * *")
+    public void deleteExpiredKeys (){
+
+        int deleted = idempotencyService.deleteExpired ();
+
+        if (deleted > 0) {
+            log.info ("Deleted [%d] expired idempotency keys.".formatted (deleted));
+        }
+    }
+}
@@ -1,65 +1,143 @@
 package app.scheduler;
 
-import app.subscription.model.Subscription;
-import app.subscription.model.SubscriptionPeriod;
-import app.subscription.model.SubscriptionType;
+import app.subscription.model.RenewalOutcome;
+import app.subscription.property.SubscriptionProperties;
 import app.subscription.service.SubscriptionService;
-import app.transaction.model.Transaction;
-import app.transaction.model.TransactionStatus;
-import app.user.model.User;
-import app.web.dto.UpgradeRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 @Component
 public class SubscriptionRenewalScheduler {
 
     private final SubscriptionService subscriptionService;
+    private final SubscriptionProperties subscriptionProperties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService renewalWorkers;
+    // Cron runs don't wait for each other on the virtual thread scheduler -> a run longer than a minute would overlap the next
+    private final AtomicBoolean running = new AtomicBoolean ();
 
     @Autowired
-    public SubscriptionRenewalScheduler(SubscriptionService subscriptionService) {
+    public SubscriptionRenewalScheduler(SubscriptionService subscriptionService, SubscriptionProperties subscriptionProperties, MeterRegistry meterRegistry,
+                                        Environment environment) {
         this.subscriptionService = subscriptionService;
+        this.subscriptionProperties = subscriptionProperties;
+        this.meterRegistry = meterRegistry;
+
+        // Virtual mode -> the workers are virtual threads, their number still bounds the connections a run takes
+        ThreadFactory threadFactory;
+        if (Threading.VIRTUAL.isActive (environment)) {
+            threadFactory = new VirtualThreadTaskExecutor ("subscription-renewal-").getVirtualThreadFactory ();
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger ();
+            threadFactory = runnable -> {
+                Thread thread = new Thread (runnable, "subscription-renewal-" + threadNumber.incrementAndGet ());
+                thread.setDaemon (true);
+                return thread;
+            };
+        }
+
+        this.renewalWorkers = Executors.newFixedThreadPool (Math.max (1, subscriptionProperties.getRenewal ().getWorkers ()), threadFactory);
+    }
+
+
+    @PreDestroy
+    public void shutdown (){
+        renewalWorkers.shutdown ();
     }
 
+
+    // The due set is read page by page (keyset on id) and every page is renewed on the bounded worker pool.
+    // The next page is only read once the current one is done, so at most one page is in flight.
     @Scheduled(cron = "0 * * * * *")
     public void renewSubscriptions (){
 
-        List <Subscription> subscriptions = subscriptionService.getAllSubscriptionsForRenewal ();
+        if (!running.compareAndSet (false, true)){
+            meterRegistry.counter ("subscription.renewal.overlap").increment ();
+            log.warn ("Previous subscription renewal run is still in progress, skipping this one.");
+            return;
+        }
+
+        try {
+            renewDueSubscriptions ();
+        } finally {
+            running.set (false);
+        }
+    }
+
+
+    private void renewDueSubscriptions (){
+
+        long start = System.nanoTime ();
+        LocalDateTime now = LocalDateTime.now ();
+        int pageSize = Math.max (1, subscriptionProperties.getRenewal ().getPageSize ());
+
+        LongAdder renewed = new LongAdder ();
+        LongAdder ended = new LongAdder ();
+        LongAdder skipped = new LongAdder ();
+        LongAdder failed = new LongAdder ();
 
-        if (subscriptions.isEmpty ()){
+        UUID afterId = new UUID (0L, 0L);
+        List <UUID> page = subscriptionService.getSubscriptionIdsForRenewal (now, afterId, pageSize);
+
+        if (page.isEmpty ()){
+         // Empty runs are timed too -> a missing run shows up as a gap, not as a quiet hour
+         meterRegistry.timer ("subscription.renewal.run", "outcome", "EMPTY").record (Duration.ofNanos (System.nanoTime () - start));
          log.info ("No subscriptions found for renewal");
          return;
         }
 
+        while (!page.isEmpty ()) {
+
+            CompletableFuture.allOf (page.stream ()
+                    .map (subscriptionId -> CompletableFuture.runAsync (() -> {
+                        try {
+                            switch (subscriptionService.renew (subscriptionId)) {
+                                case RENEWED -> renewed.increment ();
+                                case ENDED -> ended.increment ();
+                                case SKIPPED -> skipped.increment ();
+                            }
+                        } catch (RuntimeException e) {
+                            failed.increment ();
+                            log.warn ("Renewal of subscription with id [%s] failed: %s".formatted (subscriptionId, e.getMessage ()));
+                        }
+                    }, renewalWorkers))
+                    .toArray (CompletableFuture[]::new))
+                    .join ();
 
-        for (Subscription subscription : subscriptions) {
-
-            if (subscription.isRenewalAllowed ()){
-                User owner = subscription.getOwner ();
-                SubscriptionType type = subscription.getType ();
-                SubscriptionPeriod period = subscription.getPeriod ();
-                UUID walletId = owner.getWallets ().get (0).getId ();
-                UpgradeRequest upgradeRequest = UpgradeRequest.builder ()
-                        .subscriptionPeriod (period)
-                        .walletId (walletId)
-                        .build ();
-
-                Transaction transaction = subscriptionService.upgrade (owner, type, upgradeRequest);
-
-                if (transaction.getStatus () == TransactionStatus.FAILED){
-                subscriptionService.terminateSubscription(subscription);
-                subscriptionService.createDefaultSubscription (subscription.getOwner ());
-                }
-            }else{
-                subscriptionService.markSubscriptionAsCompleted(subscription);
-                subscriptionService.createDefaultSubscription (subscription.getOwner ());
-            }
+            afterId = page.get (page.size () - 1);
+            page = page.size () < pageSize ? List.of () : subscriptionService.getSubscriptionIdsForRenewal (now, afterId, pageSize);
         }
+
+        Duration duration = Duration.ofNanos (System.nanoTime () - start);
+        long processed = renewed.sum () + ended.sum () + skipped.sum () + failed.sum ();
+
+        meterRegistry.timer ("subscription.renewal.run", "outcome", failed.sum () > 0 ? "FAILED" : "SUCCEEDED").record (duration);
+        meterRegistry.counter ("subscription.renewal", "outcome", RenewalOutcome.RENEWED.name ()).increment (renewed.sum ());
+        meterRegistry.counter ("subscription.renewal", "outcome", RenewalOutcome.ENDED.name ()).increment (ended.sum ());
+        meterRegistry.counter ("subscription.renewal", "outcome", RenewalOutcome.SKIPPED.name ()).increment (skipped.sum ());
+        meterRegistry.counter ("subscription.renewal", "outcome", "FAILED").increment (failed.sum ());
+
+        log.info ("Subscription renewal run: processed [%d], renewed [%d], ended [%d], skipped [%d], failed [%d] in [%d] ms."
+                .formatted (processed, renewed.sum (), ended.sum (), skipped.sum (), failed.sum (), duration.toMillis ()));
     }
 }
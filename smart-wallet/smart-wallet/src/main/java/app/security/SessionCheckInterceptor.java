@@ -1,6 +1,6 @@
 package app.security;
 
-import app.user.model.User;
+import app.user.model.UserPrincipal;
 import app.user.model.UserRole;
 import app.user.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -51,7 +51,17 @@ public class SessionCheckInterceptor implements HandlerInterceptor {
 
         // have a session and who is it ?
         UUID userId = (UUID) currentUserSession.getAttribute ("user_id");
-        User user = userService.getById (userId);
+
+        if (userId == null){
+            response.sendRedirect ("/login");
+            return false;
+        }
+
+        // only active flag and role are needed here -> cached, status/role switches invalidate it immediately on this instance.
+        // Other instances keep their copy until the principal cache TTL runs out, except on admin pages,
+        // which compare the cached version with the row first.
+        boolean adminEndpoint = handler instanceof HandlerMethod handlerMethod && handlerMethod.hasMethodAnnotation (RequireAdminRole.class);
+        UserPrincipal user = adminEndpoint ? userService.getCurrentPrincipal (userId) : userService.getPrincipal (userId);
 
         // are you active or inactive
         if (!user.isActive ()){
@@ -71,8 +81,7 @@ public class SessionCheckInterceptor implements HandlerInterceptor {
 
         // Variant 2
 
-        HandlerMethod handlerMethod = (HandlerMethod) handler;
-        if (handlerMethod.hasMethodAnnotation (RequireAdminRole.class) && user.getRole () != UserRole.ADMIN){
+        if (adminEndpoint && user.getRole () != UserRole.ADMIN){
             response.setStatus (HttpStatus.FORBIDDEN.value ());
             response.getWriter ().write ("Access denied, you don't  have a necessary permission!");
             return false;
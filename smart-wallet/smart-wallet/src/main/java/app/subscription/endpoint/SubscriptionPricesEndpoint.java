@@ -0,0 +1,33 @@
+package app.subscription.endpoint;
+
+import app.subscription.model.SubscriptionPriceTable;
+import app.subscription.service.SubscriptionPriceCatalog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Management port only:
+// GET /actuator/subscriptionprices -> prices this instance charges and their version
+// Reloading is an admin action of the application itself (POST /subscriptions/prices/reload), the management port isn't authenticated.
+@Component
+@Endpoint(id = "subscriptionprices")
+public class SubscriptionPricesEndpoint {
+
+    private final SubscriptionPriceCatalog subscriptionPriceCatalog;
+
+    @Autowired
+    public SubscriptionPricesEndpoint(SubscriptionPriceCatalog subscriptionPriceCatalog) {
+        this.subscriptionPriceCatalog = subscriptionPriceCatalog;
+    }
+
+
+    @ReadOperation
+    public Map<String, Object> prices () {
+
+        SubscriptionPriceTable table = subscriptionPriceCatalog.getTable ();
+        return Map.of ("version", table.getVersion (), "prices", table.asMap ());
+    }
+}
@@ -0,0 +1,13 @@
+package app.subscription.model;
+
+public enum RenewalOutcome {
+
+    // Charged and replaced by a new subscription of the same type
+    RENEWED,
+
+    // Renewal not allowed or the charge failed -> the user falls back to a default subscription
+    ENDED,
+
+    // No longer active or not due anymore, e.g. upgraded by the user in the meantime
+    SKIPPED
+}
@@ -1,10 +1,10 @@
 package app.subscription.model;
 
+import app.money.Money;
 import app.user.model.User;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -20,7 +20,7 @@ public class Subscription {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
     @Column(nullable = false)
@@ -36,7 +36,7 @@ public class Subscription {
     private SubscriptionType type;
 
     @Column(nullable = false, scale = 2)
-    private BigDecimal price;
+    private Money price;
 
     private boolean renewalAllowed;
 
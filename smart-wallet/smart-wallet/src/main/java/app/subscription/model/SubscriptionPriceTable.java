@@ -0,0 +1,73 @@
+package app.subscription.model;
+
+import app.money.Money;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Immutable price of every type/period pair, indexed by the enum ordinals -> a lookup is two array reads, nothing is allocated.
+// Prices with more decimals than the currency has are rejected instead of rounded.
+// A reload builds a new table with the next version, the old one is never modified.
+public final class SubscriptionPriceTable {
+
+    @Getter
+    private final long version;
+
+    private final Money[][] prices;
+
+
+    private SubscriptionPriceTable(long version, Money[][] prices) {
+        this.version = version;
+        this.prices = prices;
+    }
+
+
+    public static SubscriptionPriceTable of (long version, Map<SubscriptionType, Map<SubscriptionPeriod, BigDecimal>> configuredPrices) {
+
+        Money[][] prices = new Money[SubscriptionType.values ().length][SubscriptionPeriod.values ().length];
+
+        for (SubscriptionType type : SubscriptionType.values ()) {
+            for (SubscriptionPeriod period : SubscriptionPeriod.values ()) {
+
+                BigDecimal price = configuredPrices.getOrDefault (type, Map.of ()).get (period);
+                if (price == null) {
+                    throw new IllegalStateException ("Missing subscription price for type [%s] and period [%s].".formatted (type, period));
+                }
+                prices[type.ordinal ()][period.ordinal ()] = normalize (price);
+            }
+        }
+
+        return new SubscriptionPriceTable (version, prices);
+    }
+
+
+    public Money getPrice (SubscriptionType type, SubscriptionPeriod period) {
+        return prices[type.ordinal ()][period.ordinal ()];
+    }
+
+
+    public Map<String, Map<String, BigDecimal>> asMap () {
+
+        Map<String, Map<String, BigDecimal>> result = new LinkedHashMap<> ();
+        for (SubscriptionType type : SubscriptionType.values ()) {
+            Map<String, BigDecimal> byPeriod = new LinkedHashMap<> ();
+            for (SubscriptionPeriod period : SubscriptionPeriod.values ()) {
+                byPeriod.put (period.name (), getPrice (type, period).toBigDecimal ());
+            }
+            result.put (type.name (), Collections.unmodifiableMap (byPeriod));
+        }
+        return Collections.unmodifiableMap (result);
+    }
+
+
+    private static Money normalize (BigDecimal price) {
+
+        if (price.signum () < 0) {
+            throw new IllegalArgumentException ("Subscription price can't be negative [%s].".formatted (price));
+        }
+        return Money.of (price);
+    }
+}
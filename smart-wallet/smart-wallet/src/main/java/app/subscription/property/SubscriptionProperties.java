@@ -0,0 +1,41 @@
+package app.subscription.property;
+
+import app.subscription.model.SubscriptionPeriod;
+import app.subscription.model.SubscriptionType;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.validation.annotation.Validated;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "domain.subscription.properties")
+public class SubscriptionProperties {
+
+    private Renewal renewal = new Renewal ();
+
+    // domain.subscription.properties.prices.<type>.<period>=<price>, every type/period pair is required
+    private Map<SubscriptionType, Map<SubscriptionPeriod, BigDecimal>> prices = new HashMap<> ();
+
+    // Optional price file (e.g. file:/etc/smart-wallet/subscription-prices.properties) with the same prices.<type>.<period> keys.
+    // When set it replaces the prices above and is re-read on every reload -> prices change without a restart.
+    private Resource pricesLocation;
+
+
+    @Getter
+    @Setter
+    public static class Renewal {
+
+        // Due subscriptions are read in pages of this size -> a run never holds the whole due set in memory
+        private int pageSize = 200;
+
+        // Worker threads renewing the subscriptions of a page, each one in its own transaction
+        private int workers = 4;
+    }
+}
@@ -2,7 +2,11 @@ package app.subscription.repository;
 
 import app.subscription.model.Subscription;
 import app.subscription.model.SubscriptionStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -16,5 +20,23 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, UUID
     Optional<Subscription> findByStatusAndOwnerId(SubscriptionStatus status, UUID ownerId);
 
 
-    List <Subscription> findAllByStatusAndCompletedOnLessThanEqual(SubscriptionStatus status, LocalDateTime now);
+    List <Subscription> findAllByOwnerIdOrderByCreatedOnDesc(UUID ownerId);
+
+
+    Optional <Subscription> findFirstByOwnerIdOrderByCreatedOnDesc(UUID ownerId);
+
+
+    // Keyset page over the ids of the due subscriptions -> the renewal run reads the due set chunk by chunk
+    @Query("""
+            SELECT s.id FROM Subscription s
+            WHERE s.status = :status AND s.completedOn <= :now AND s.id > :afterId
+            ORDER BY s.id
+            """)
+    List <UUID> findDueIds(SubscriptionStatus status, LocalDateTime now, UUID afterId, Pageable pageable);
+
+
+    // SELECT ... FOR UPDATE -> the row stays locked until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subscription s WHERE s.id = :subscriptionId")
+    Optional <Subscription> findByIdForUpdate(UUID subscriptionId);
 }
@@ -0,0 +1,100 @@
+package app.subscription.service;
+
+import app.exception.DomainException;
+import app.money.Money;
+import app.subscription.model.SubscriptionPeriod;
+import app.subscription.model.SubscriptionPriceTable;
+import app.subscription.model.SubscriptionType;
+import app.subscription.property.SubscriptionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Current subscription prices. Readers always see one complete table, a reload swaps the whole table at once.
+// Prices come from domain.subscription.properties.prices-location when it is set, otherwise from the inline configuration
+// which can only change with a (rolling) restart.
+@Slf4j
+@Component
+public class SubscriptionPriceCatalog {
+
+    private static final String PRICES_PROPERTY = "prices";
+
+    private static final Bindable<Map<SubscriptionType, Map<SubscriptionPeriod, BigDecimal>>> PRICES = Bindable.of (
+            ResolvableType.forClassWithGenerics (Map.class,
+                    ResolvableType.forClass (SubscriptionType.class),
+                    ResolvableType.forClassWithGenerics (Map.class, SubscriptionPeriod.class, BigDecimal.class)));
+
+    private final Resource pricesLocation;
+    private final AtomicReference<SubscriptionPriceTable> table;
+
+
+    @Autowired
+    public SubscriptionPriceCatalog(SubscriptionProperties subscriptionProperties) {
+        this.pricesLocation = subscriptionProperties.getPricesLocation ();
+
+        Map<SubscriptionType, Map<SubscriptionPeriod, BigDecimal>> prices = pricesLocation != null
+                ? readPrices (pricesLocation)
+                : subscriptionProperties.getPrices ();
+        this.table = new AtomicReference<> (SubscriptionPriceTable.of (1, prices));
+    }
+
+
+
+    public Money getPrice (SubscriptionType type, SubscriptionPeriod period) {
+        return table.get ().getPrice (type, period);
+    }
+
+
+    public SubscriptionPriceTable getTable () {
+        return table.get ();
+    }
+
+
+
+    // Re-reads the price file, a missing or incomplete file keeps the current table
+    public SubscriptionPriceTable reload () {
+
+        if (pricesLocation == null) {
+            throw new DomainException ("Subscription prices are configured inline, set [domain.subscription.properties.prices-location] to reload them.", HttpStatus.CONFLICT);
+        }
+
+        SubscriptionPriceTable reloaded;
+        try {
+            Map<SubscriptionType, Map<SubscriptionPeriod, BigDecimal>> prices = readPrices (pricesLocation);
+            reloaded = table.updateAndGet (current -> SubscriptionPriceTable.of (current.getVersion () + 1, prices));
+        } catch (RuntimeException e) {
+            log.warn ("Subscription prices in [%s] not reloaded, keeping version [%d].".formatted (pricesLocation, table.get ().getVersion ()), e);
+            throw new DomainException ("Subscription prices in [%s] can't be loaded: %s".formatted (pricesLocation, e.getMessage ()), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        log.info ("Reloaded subscription prices from [%s], version [%d].".formatted (pricesLocation, reloaded.getVersion ()));
+        return reloaded;
+    }
+
+
+
+    private static Map<SubscriptionType, Map<SubscriptionPeriod, BigDecimal>> readPrices (Resource location) {
+
+        try {
+            MapConfigurationPropertySource source = new MapConfigurationPropertySource (PropertiesLoaderUtils.loadProperties (location));
+            return new Binder (source)
+                    .bind (PRICES_PROPERTY, PRICES)
+                    .orElseThrow (() -> new IllegalStateException ("No [%s.*] entries in [%s].".formatted (PRICES_PROPERTY, location)));
+        } catch (IOException e) {
+            throw new UncheckedIOException ("Can't read subscription prices from [%s].".formatted (location), e);
+        }
+    }
+}
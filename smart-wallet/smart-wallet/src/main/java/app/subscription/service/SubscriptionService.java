@@ -2,6 +2,9 @@
 package app.subscription.service;
 
 import app.exception.DomainException;
+import app.idempotency.service.IdempotencyService;
+import app.money.Money;
+import app.subscription.model.RenewalOutcome;
 import app.subscription.model.Subscription;
 import app.subscription.model.SubscriptionPeriod;
 import app.subscription.model.SubscriptionStatus;
@@ -9,19 +12,21 @@ import app.subscription.model.SubscriptionType;
 import app.subscription.repository.SubscriptionRepository;
 import app.transaction.model.Transaction;
 import app.transaction.model.TransactionStatus;
+import app.transaction.service.TransactionMetrics;
 import app.user.model.User;
 import app.wallet.service.WalletService;
 import app.web.dto.UpgradeRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Slf4j
 @Service
@@ -30,13 +35,20 @@ public class SubscriptionService {
 
     private final SubscriptionRepository subscriptionRepository;
     private final WalletService walletService;
+    private final SubscriptionPriceCatalog subscriptionPriceCatalog;
+    private final TransactionMetrics transactionMetrics;
+    private final IdempotencyService idempotencyService;
 
 
     //Constructor
     @Autowired
-    public SubscriptionService(SubscriptionRepository subscriptionRepository, WalletService walletService) {
+    public SubscriptionService(SubscriptionRepository subscriptionRepository, WalletService walletService, SubscriptionPriceCatalog subscriptionPriceCatalog,
+                               TransactionMetrics transactionMetrics, IdempotencyService idempotencyService) {
         this.subscriptionRepository = subscriptionRepository;
         this.walletService = walletService;
+        this.subscriptionPriceCatalog = subscriptionPriceCatalog;
+        this.transactionMetrics = transactionMetrics;
+        this.idempotencyService = idempotencyService;
     }
 
 
@@ -54,6 +66,15 @@ public class SubscriptionService {
 
 
 
+    public void createDefaultSubscriptions (List<User> users){
+
+        subscriptionRepository.saveAll (users.stream ().map (this::initilizeSubscription).toList ());
+
+        log.info ("Successfully created [%d] default subscriptions.".formatted (users.size ()));
+    }
+
+
+
     // method
     private Subscription initilizeSubscription(User user) {
 
@@ -64,7 +85,7 @@ public class SubscriptionService {
                 .status (SubscriptionStatus.ACTIVE)
                 .period (SubscriptionPeriod.MONTHLY)
                 .type (SubscriptionType.DEFAULT)
-                .price (new BigDecimal ("0.00"))
+                .price (subscriptionPriceCatalog.getPrice (SubscriptionType.DEFAULT, SubscriptionPeriod.MONTHLY))
                 .renewalAllowed (true)
                 .createdOn (now)
                 .completedOn (now.plusMonths (1))
@@ -74,6 +95,17 @@ public class SubscriptionService {
     @Transactional
     public Transaction upgrade(User user, SubscriptionType subscriptionType, UpgradeRequest upgradeRequest) {
 
+        return transactionMetrics.record ("subscription.upgrade", () -> {
+            Transaction transaction = applyUpgrade (user, subscriptionType, upgradeRequest);
+            // Same transaction -> the upgrade and its idempotency key are committed together
+            idempotencyService.completeClaim (transaction.getId ());
+            return transaction;
+        });
+    }
+
+
+    private Transaction applyUpgrade(User user, SubscriptionType subscriptionType, UpgradeRequest upgradeRequest) {
+
         Optional <Subscription> optionalSubscription =
                 subscriptionRepository.findByStatusAndOwnerId (SubscriptionStatus.ACTIVE, user.getId ());
 
@@ -84,7 +116,7 @@ public class SubscriptionService {
 
         Subscription currentSubscription = optionalSubscription.get ();
         SubscriptionPeriod subscriptionPeriod = upgradeRequest.getSubscriptionPeriod ();
-        BigDecimal subscriptionPrice = getSubscriptionPrice(subscriptionType, subscriptionPeriod);
+        Money subscriptionPrice = subscriptionPriceCatalog.getPrice (subscriptionType, subscriptionPeriod);
 
         String period = subscriptionPeriod.name ().substring (0, 1).toUpperCase () + subscriptionPeriod.name ().substring (1).toLowerCase ();
         String type = subscriptionType.name ().substring (0, 1).toUpperCase () + subscriptionType.name ().substring (1).toLowerCase ();
@@ -128,26 +160,64 @@ public class SubscriptionService {
 
 
 
-    private BigDecimal getSubscriptionPrice(SubscriptionType subscriptionType, SubscriptionPeriod subscriptionPeriod) {
+    public List <Subscription> getAllByOwnerId(UUID ownerId) {
+
+        return subscriptionRepository.findAllByOwnerIdOrderByCreatedOnDesc (ownerId);
+    }
 
-        if (subscriptionType == subscriptionType.DEFAULT){
-            return BigDecimal.ZERO;
-        } else if (subscriptionType == subscriptionType.PREMIUM && subscriptionPeriod == subscriptionPeriod.MONTHLY) {
-            return new BigDecimal ("19.99");
-        } else if (subscriptionType == subscriptionType.PREMIUM && subscriptionPeriod == subscriptionPeriod.YEARLY) {
-            return new BigDecimal ("199.99");
-        }else if (subscriptionType == subscriptionType.ULTIMATE && subscriptionPeriod == subscriptionPeriod.MONTHLY){
-            return new BigDecimal ("49.99");
-        } else {
-            return new BigDecimal ("499.99");
-        }
 
+    // The most recently created subscription -> the current one
+    public Subscription getLatestByOwnerId(UUID ownerId) {
+
+        return subscriptionRepository.findFirstByOwnerIdOrderByCreatedOnDesc (ownerId)
+                .orElseThrow (() -> new DomainException ("User with id [%s] doesn't have a subscription."
+                        .formatted (ownerId), HttpStatus.BAD_REQUEST));
     }
 
 
 
-    public List <Subscription> getAllSubscriptionsForRenewal() {
-        return subscriptionRepository.findAllByStatusAndCompletedOnLessThanEqual (SubscriptionStatus.ACTIVE, LocalDateTime.now ());
+    public List <UUID> getSubscriptionIdsForRenewal(LocalDateTime now, UUID afterId, int pageSize) {
+
+        return subscriptionRepository.findDueIds (SubscriptionStatus.ACTIVE, now, afterId, PageRequest.of (0, pageSize));
+    }
+
+
+
+    // One subscription per transaction -> a failing renewal only rolls back itself.
+    // The row is locked before the due check: an overlapping run or another instance waits here and then finds
+    // the subscription already completed -> SKIPPED, so a subscription is never charged twice for one period.
+    @Transactional
+    public RenewalOutcome renew(UUID subscriptionId) {
+
+        Subscription subscription = subscriptionRepository.findByIdForUpdate (subscriptionId)
+                .orElseThrow (() -> new DomainException ("Subscription with id [%s] does not exist."
+                        .formatted (subscriptionId), HttpStatus.BAD_REQUEST));
+
+        if (subscription.getStatus () != SubscriptionStatus.ACTIVE || subscription.getCompletedOn ().isAfter (LocalDateTime.now ())) {
+            return RenewalOutcome.SKIPPED;
+        }
+
+        User owner = subscription.getOwner ();
+
+        if (subscription.isRenewalAllowed ()) {
+            UpgradeRequest upgradeRequest = UpgradeRequest.builder ()
+                    .subscriptionPeriod (subscription.getPeriod ())
+                    .walletId (walletService.getLatestByOwnerId (owner.getId ()).getId ())
+                    .build ();
+
+            // Measured by the renewal run, not as a user upgrade
+            Transaction transaction = applyUpgrade (owner, subscription.getType (), upgradeRequest);
+
+            if (transaction.getStatus () == TransactionStatus.SUCCEEDED) {
+                return RenewalOutcome.RENEWED;
+            }
+            terminateSubscription (subscription);
+        } else {
+            markSubscriptionAsCompleted (subscription);
+        }
+
+        createDefaultSubscription (owner);
+        return RenewalOutcome.ENDED;
     }
 
 
@@ -1,15 +1,16 @@
 package app.transaction.model;
 
+import app.money.Money;
 import app.user.model.User;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Currency;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = @Index(name = "idx_transaction_owner_created_on", columnList = "owner_id, created_on, id"))
 @Getter
 @Builder
 @Setter
@@ -21,7 +22,7 @@ public class Transaction {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
     @Column(nullable = false)
@@ -31,10 +32,10 @@ public class Transaction {
     private String receiver;
 
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     @Column(nullable = false)
-    private BigDecimal balanceLeft;
+    private Money balanceLeft;
 
     @Column(nullable = false)
     private Currency currency;
@@ -0,0 +1,44 @@
+package app.transaction.model;
+
+import app.money.Money;
+import app.user.model.Country;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+
+// One GROUP BY bucket of the transaction table, used to rebuild the report counters at startup
+@Getter
+public class TransactionAggregate {
+
+    private final LocalDate day;
+
+    private final TransactionType type;
+
+    private final TransactionStatus status;
+
+    private final Currency currency;
+
+    private final String failureReason;
+
+    private final Country country;
+
+    private final long count;
+
+    private final Money volume;
+
+
+    // Called from the JPQL constructor expression -> SUM over the amount column arrives as a plain decimal
+    public TransactionAggregate (LocalDate day, TransactionType type, TransactionStatus status, Currency currency, String failureReason,
+                                 Country country, Long count, BigDecimal volume) {
+        this.day = day;
+        this.type = type;
+        this.status = status;
+        this.currency = currency;
+        this.failureReason = failureReason;
+        this.country = country;
+        this.count = count;
+        this.volume = volume == null ? Money.ZERO : Money.of (volume, currency);
+    }
+}
@@ -0,0 +1,30 @@
+package app.transaction.model;
+
+import app.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// Position of a transaction in the (createdOn, id) ordering, passed around as an opaque URL safe token
+public record TransactionCursor(LocalDateTime createdOn, UUID id) {
+
+    public static String of (Transaction transaction) {
+
+        String raw = transaction.getCreatedOn () + "|" + transaction.getId ();
+        return Base64.getUrlEncoder ().withoutPadding ().encodeToString (raw.getBytes (StandardCharsets.UTF_8));
+    }
+
+
+    public static TransactionCursor decode (String token) {
+
+        try {
+            String[] parts = new String (Base64.getUrlDecoder ().decode (token), StandardCharsets.UTF_8).split ("\\|", 2);
+            return new TransactionCursor (LocalDateTime.parse (parts[0]), UUID.fromString (parts[1]));
+        } catch (RuntimeException e) {
+            throw new DomainException ("Invalid transactions page cursor [%s].".formatted (token), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package app.transaction.model;
+
+import app.money.Money;
+import lombok.Value;
+
+import java.util.Currency;
+import java.util.UUID;
+
+// What the detail page shows of a transaction -> immutable and detached from the persistence context and the owner graph
+@Value
+public class TransactionDetail {
+
+    UUID id;
+    TransactionStatus status;
+    Money amount;
+    Currency currency;
+    String description;
+    String failureReason;
+
+
+    public static TransactionDetail of (Transaction transaction) {
+
+        return new TransactionDetail (transaction.getId (), transaction.getStatus (), transaction.getAmount (),
+                transaction.getCurrency (), transaction.getDescription (), transaction.getFailureReason ());
+    }
+}
@@ -0,0 +1,18 @@
+package app.transaction.model;
+
+import lombok.Getter;
+
+@Getter
+public enum TransactionExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    TransactionExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+}
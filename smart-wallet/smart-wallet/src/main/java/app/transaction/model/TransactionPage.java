@@ -0,0 +1,20 @@
+package app.transaction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// One page of a transaction history, newest first.
+// The cursors are opaque and null when there is nothing older / newer to show.
+@Getter
+@AllArgsConstructor
+public class TransactionPage {
+
+    private final List<Transaction> transactions;
+
+    private final String nextCursor;
+
+    private final String previousCursor;
+
+}
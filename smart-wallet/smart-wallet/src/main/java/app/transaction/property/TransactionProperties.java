@@ -0,0 +1,21 @@
+package app.transaction.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "domain.transaction.properties")
+public class TransactionProperties {
+
+    private int pageSize = 20;
+
+    // Upper bound for a requested page size -> one history page never costs more than this many rows
+    private int maxPageSize = 100;
+
+    // Transactions never change once written -> detail lookups by id are served from memory
+    private long detailCacheMaxSize = 10_000;
+}
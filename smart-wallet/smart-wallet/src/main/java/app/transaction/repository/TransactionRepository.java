@@ -1,17 +1,81 @@
 package app.transaction.repository;
 
 import app.transaction.model.Transaction;
+import app.transaction.model.TransactionAggregate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
+    // Connector/J streams a result row by row when the fetch size is Integer.MIN_VALUE -> only this statement
+    // reads through the open result set, every other query keeps the default fully buffered result
+    int EXPORT_FETCH_SIZE = Integer.MIN_VALUE;
 
 
-    List<Transaction> findAllByOwnerIdOrderByCreatedOnDesc (UUID ownerId);
 
+    // Keyset pagination over (created_on, id) -> every page is an index range scan of "size" rows,
+    // no matter how deep into the history it is. Pageable is only used for the limit (List result -> no count query).
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.owner.id = :ownerId
+            ORDER BY t.createdOn DESC, t.id DESC
+            """)
+    List<Transaction> findNewestByOwnerId (UUID ownerId, Pageable pageable);
 
-}
\ No newline at end of file
+
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.owner.id = :ownerId
+              AND (t.createdOn < :createdOn OR (t.createdOn = :createdOn AND t.id < :id))
+            ORDER BY t.createdOn DESC, t.id DESC
+            """)
+    List<Transaction> findOlderByOwnerId (UUID ownerId, LocalDateTime createdOn, UUID id, Pageable pageable);
+
+
+    // Walks the index upwards -> the caller reverses the result to keep the page newest first
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.owner.id = :ownerId
+              AND (t.createdOn > :createdOn OR (t.createdOn = :createdOn AND t.id > :id))
+            ORDER BY t.createdOn ASC, t.id ASC
+            """)
+    List<Transaction> findNewerByOwnerId (UUID ownerId, LocalDateTime createdOn, UUID id, Pageable pageable);
+
+
+    // Forward only stream for exports -> rows arrive one by one instead of the whole result set at once.
+    // Must be consumed inside a transaction and closed afterwards, and the connection can't run another query
+    // until then -> nothing lazy (e.g. owner) may be touched while iterating.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            SELECT t FROM Transaction t
+            WHERE t.owner.id = :ownerId
+            ORDER BY t.createdOn DESC, t.id DESC
+            """)
+    Stream<Transaction> streamAllByOwnerId (UUID ownerId);
+
+
+    // One pass over the table in the database, only the buckets travel to the application
+    @Query("""
+            SELECT new app.transaction.model.TransactionAggregate(
+                CAST(t.createdOn AS LocalDate), t.type, t.status, t.currency, t.failureReason, u.country, COUNT(t), CAST(SUM(t.amount) AS BigDecimal))
+            FROM Transaction t LEFT JOIN t.owner u
+            GROUP BY CAST(t.createdOn AS LocalDate), t.type, t.status, t.currency, t.failureReason, u.country
+            """)
+    List<TransactionAggregate> aggregateAll ();
+
+
+}
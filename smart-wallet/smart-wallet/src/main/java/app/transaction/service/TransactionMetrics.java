@@ -0,0 +1,52 @@
+package app.transaction.service;
+
+import app.transaction.model.Transaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Latency and outcome of the operations that end in a transaction record. One timer per operation,
+// tagged with the record's status and failure reason -> its count doubles as the counter per outcome.
+// A thrown exception is tagged as outcome ERROR with the exception type as reason.
+@Component
+public class TransactionMetrics {
+
+    private static final String NO_REASON = "none";
+
+    private final MeterRegistry meterRegistry;
+
+
+    @Autowired
+    public TransactionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+
+
+    public Transaction record (String name, Supplier<Transaction> operation) {
+
+        Timer.Sample sample = Timer.start (meterRegistry);
+
+        Transaction transaction;
+        try {
+            transaction = operation.get ();
+        } catch (RuntimeException e) {
+            stop (sample, name, "ERROR", e.getClass ().getSimpleName ());
+            throw e;
+        }
+
+        String reason = transaction.getFailureReason () == null ? NO_REASON : transaction.getFailureReason ();
+        stop (sample, name, transaction.getStatus ().name (), reason);
+
+        return transaction;
+    }
+
+
+    private void stop (Timer.Sample sample, String name, String outcome, String reason) {
+
+        sample.stop (meterRegistry.timer (name, "outcome", outcome, "reason", reason));
+    }
+}
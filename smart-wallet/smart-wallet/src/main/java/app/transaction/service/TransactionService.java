@@ -1,39 +1,80 @@
 package app.transaction.service;
 
 import app.exception.DomainException;
+import app.money.Money;
+import app.report.service.TransactionReportService;
 import app.transaction.model.Transaction;
+import app.transaction.model.TransactionCursor;
+import app.transaction.model.TransactionDetail;
+import app.transaction.model.TransactionExportFormat;
+import app.transaction.model.TransactionPage;
 import app.transaction.model.TransactionStatus;
 import app.transaction.model.TransactionType;
+import app.transaction.property.TransactionProperties;
 import app.transaction.repository.TransactionRepository;
 import app.user.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.Writer;
 import java.time.LocalDateTime;
-import java.util.Currency;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class TransactionService {
 
+    private static final List<String> EXPORT_COLUMNS = List.of ("id", "createdOn", "type", "status", "amount", "currency",
+            "balanceLeft", "sender", "receiver", "description", "failureReason");
+
     private final TransactionRepository transactionRepository;
+    private final TransactionProperties transactionProperties;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionReportService transactionReportService;
+    private final Cache<UUID, TransactionDetail> detailsById;
 
 
 
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository) {
+    public TransactionService(TransactionRepository transactionRepository, TransactionProperties transactionProperties,
+                              EntityManager entityManager, ObjectMapper objectMapper,
+                              TransactionReportService transactionReportService) {
         this.transactionRepository = transactionRepository;
+        this.transactionProperties = transactionProperties;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionReportService = transactionReportService;
+        this.detailsById = Caffeine.newBuilder ()
+                .maximumSize (transactionProperties.getDetailCacheMaxSize ())
+                .build ();
     }
 
 
 
 
-    public Transaction createNewTransaction(User owner, String sender, String receiver, BigDecimal transactionAmount, BigDecimal balanceLeft, Currency currency, TransactionType type, TransactionStatus status, String transactionDescription, String failureReason) {
+    public Transaction createNewTransaction(User owner, String sender, String receiver, Money transactionAmount, Money balanceLeft, TransactionType type, TransactionStatus status, String transactionDescription, String failureReason) {
 
 
         Transaction transaction = Transaction.builder ()
@@ -42,7 +83,7 @@ public class TransactionService {
                 .receiver (receiver)
                 .amount (transactionAmount)
                 .balanceLeft (balanceLeft)
-                .currency (currency)
+                .currency (transactionAmount.getCurrency ())
                 .type (type)
                 .status (status)
                 .description (transactionDescription)
@@ -50,24 +91,162 @@ public class TransactionService {
                 .createdOn (LocalDateTime.now ())
                 .build ();
 
-        return transactionRepository.save (transaction);
+        Transaction saved = transactionRepository.save (transaction);
+
+        // Report counters move only once the record is committed
+        transactionReportService.record (saved);
+
+        // Transfers and upgrades redirect straight to the detail page -> it is served without a lookup
+        cacheAfterCommit (saved);
+
+        return saved;
     }
 
 
 
 
 
-    public List<Transaction> getAllByOwnerId(UUID ownerId) {
+    // "after" continues towards older transactions, "before" goes back towards newer ones; without a cursor -> newest page
+    public TransactionPage getPageByOwnerId(UUID ownerId, String after, String before, Integer size) {
+
+        int requested = size == null ? transactionProperties.getPageSize () : size;
+        int limit = Math.max (1, Math.min (requested, transactionProperties.getMaxPageSize ()));
+        Pageable oneMore = PageRequest.of (0, limit + 1);
+
+        if (before != null) {
+            TransactionCursor cursor = TransactionCursor.decode (before);
+            List<Transaction> newer = new ArrayList<> (transactionRepository.findNewerByOwnerId (ownerId, cursor.createdOn (), cursor.id (), oneMore));
+
+            if (!newer.isEmpty ()) {
+                boolean hasNewer = newer.size () > limit;
+                List<Transaction> page = newer.subList (0, Math.min (limit, newer.size ()));
+                Collections.reverse (page);
+
+                return new TransactionPage (page, TransactionCursor.of (page.get (page.size () - 1)), hasNewer ? TransactionCursor.of (page.get (0)) : null);
+            }
+            after = null;
+        }
+
+        List<Transaction> older;
+        if (after == null) {
+            older = transactionRepository.findNewestByOwnerId (ownerId, oneMore);
+        } else {
+            TransactionCursor cursor = TransactionCursor.decode (after);
+            older = transactionRepository.findOlderByOwnerId (ownerId, cursor.createdOn (), cursor.id (), oneMore);
+        }
 
-        return transactionRepository.findAllByOwnerIdOrderByCreatedOnDesc (ownerId);
+        boolean hasOlder = older.size () > limit;
+        List<Transaction> page = older.subList (0, Math.min (limit, older.size ()));
+
+        String nextCursor = hasOlder ? TransactionCursor.of (page.get (page.size () - 1)) : null;
+        String previousCursor = after != null && !page.isEmpty () ? TransactionCursor.of (page.get (0)) : null;
+
+        return new TransactionPage (page, nextCursor, previousCursor);
     }
 
 
 
-    public Transaction getById (UUID id){
+    // Streams the whole history straight into the writer -> memory stays flat however many transactions the user has.
+    // Every row is detached once written, so the persistence context doesn't grow with the export.
+    @Transactional(readOnly = true)
+    public long exportByOwnerId (UUID ownerId, TransactionExportFormat format, Writer writer) throws IOException {
+
+        long exported = 0;
+
+        if (format == TransactionExportFormat.CSV) {
+            writer.write (String.join (",", EXPORT_COLUMNS));
+            writer.write ("\n");
+        }
+
+        try (Stream<Transaction> transactions = transactionRepository.streamAllByOwnerId (ownerId)) {
+
+            Iterator<Transaction> iterator = transactions.iterator ();
+            while (iterator.hasNext ()) {
+                Transaction transaction = iterator.next ();
+
+                List<Object> values = exportValues (transaction);
+                if (format == TransactionExportFormat.CSV) {
+                    writer.write (values.stream ().map (TransactionService::toCsvField).collect (Collectors.joining (",")));
+                } else {
+                    Map<String, Object> row = new LinkedHashMap<> ();
+                    for (int i = 0; i < EXPORT_COLUMNS.size (); i++) {
+                        row.put (EXPORT_COLUMNS.get (i), values.get (i));
+                    }
+                    writer.write (objectMapper.writeValueAsString (row));
+                }
+                writer.write ("\n");
+
+                entityManager.detach (transaction);
+                exported++;
+            }
+        }
+
+        writer.flush ();
+        log.info ("Exported [%d] transactions of user [%s] as %s.".formatted (exported, ownerId, format));
+
+        return exported;
+    }
+
+
+    private static List<Object> exportValues (Transaction transaction) {
+
+        return Arrays.asList (
+                transaction.getId (),
+                transaction.getCreatedOn ().toString (),
+                transaction.getType (),
+                transaction.getStatus (),
+                transaction.getAmount ().toBigDecimal (),
+                transaction.getCurrency (),
+                transaction.getBalanceLeft ().toBigDecimal (),
+                transaction.getSender (),
+                transaction.getReceiver (),
+                transaction.getDescription (),
+                transaction.getFailureReason ());
+    }
+
+
+    private static String toCsvField (Object value) {
+
+        if (value == null) {
+            return "";
+        }
+
+        String text = value.toString ();
+        if (text.contains (",") || text.contains ("\"") || text.contains ("\n") || text.contains ("\r")) {
+            return "\"" + text.replace ("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+
+
+    // Unknown ids aren't cached (the loader returns null), so a transaction committed later is still found
+    public TransactionDetail getDetailById (UUID id){
+
+        TransactionDetail detail = detailsById.get (id, key -> transactionRepository.findById (key).map (TransactionDetail::of).orElse (null));
+
+        if (detail == null) {
+            throw new DomainException ("Transaction with id [%s] does not exist.".formatted (id), HttpStatus.BAD_REQUEST);
+        }
+        return detail;
+    }
+
+
+    // Inside a transaction the record may still roll back -> cached only once it is committed
+    private void cacheAfterCommit (Transaction transaction) {
+
+        TransactionDetail detail = TransactionDetail.of (transaction);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive ()) {
+            detailsById.put (detail.getId (), detail);
+            return;
+        }
 
-        return transactionRepository.findById (id)
-                .orElseThrow (() -> new DomainException ("Transaction with id [%s] does not exist."
-                .formatted (id), HttpStatus.BAD_REQUEST));
+        TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+            @Override
+            public void afterCommit () {
+                detailsById.put (detail.getId (), detail);
+            }
+        });
     }
 }
\ No newline at end of file
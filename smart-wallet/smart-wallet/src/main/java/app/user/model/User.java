@@ -11,6 +11,13 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        // Admin listing, newest first -> one index per filter, each already in page order
+        @Index(name = "idx_user_created_on", columnList = "created_on, id"),
+        @Index(name = "idx_user_role_created_on", columnList = "role, created_on, id"),
+        @Index(name = "idx_user_country_created_on", columnList = "country, created_on, id"),
+        @Index(name = "idx_user_active_created_on", columnList = "is_active, created_on, id")
+})
 @Getter
 @Builder
 @Setter
@@ -54,11 +61,15 @@ public class User {
     @Column(nullable = false)
     private LocalDateTime updatedOn;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "owner")
+    @Version
+    private long version;
+
+    // Lazy -> every page loads exactly the wallets/subscriptions it shows through the repositories
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "owner")
     @OrderBy("createdOn DESC")
     private List<Subscription> subscriptions = new ArrayList<>();
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "owner")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "owner")
     @OrderBy("createdOn DESC")
     private List<Wallet> wallets = new ArrayList<> ();
 }
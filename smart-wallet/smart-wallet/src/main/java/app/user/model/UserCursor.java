@@ -0,0 +1,30 @@
+package app.user.model;
+
+import app.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// Position of a user in the (createdOn, id) ordering of the admin listing, passed around as an opaque URL safe token
+public record UserCursor(LocalDateTime createdOn, UUID id) {
+
+    public static String of (UserSummary user) {
+
+        String raw = user.getCreatedOn () + "|" + user.getId ();
+        return Base64.getUrlEncoder ().withoutPadding ().encodeToString (raw.getBytes (StandardCharsets.UTF_8));
+    }
+
+
+    public static UserCursor decode (String token) {
+
+        try {
+            String[] parts = new String (Base64.getUrlDecoder ().decode (token), StandardCharsets.UTF_8).split ("\\|", 2);
+            return new UserCursor (LocalDateTime.parse (parts[0]), UUID.fromString (parts[1]));
+        } catch (RuntimeException e) {
+            throw new DomainException ("Invalid users page cursor [%s].".formatted (token), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
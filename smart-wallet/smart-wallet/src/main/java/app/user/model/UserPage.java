@@ -0,0 +1,16 @@
+package app.user.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class UserPage {
+
+    private final List<UserSummary> users;
+
+    // null on the last page
+    private final String nextCursor;
+}
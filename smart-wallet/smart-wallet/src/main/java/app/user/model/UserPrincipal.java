@@ -0,0 +1,20 @@
+package app.user.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+// The part of the user which is checked on every request -> small enough to be cached per user id
+@Getter
+@AllArgsConstructor
+public class UserPrincipal {
+
+    private final UUID id;
+
+    private final boolean active;
+
+    private final UserRole role;
+
+    private final long version;
+}
@@ -0,0 +1,27 @@
+package app.user.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One row of the admin users listing -> no wallets, subscriptions or password hash are loaded
+@Getter
+@AllArgsConstructor
+public class UserSummary {
+
+    private final UUID id;
+
+    private final String username;
+
+    private final String email;
+
+    private final UserRole role;
+
+    private final Country country;
+
+    private final boolean active;
+
+    private final LocalDateTime createdOn;
+}
@@ -6,6 +6,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 @Getter
 @Setter
 @Validated
@@ -16,4 +18,29 @@ public class UserProperties {
 
     private boolean isActiveByDefault;
 
+    // How long another instance may still see a user's old active flag or role (admin pages excepted)
+    private Duration principalCacheTtl = Duration.ofSeconds (30);
+
+    private long principalCacheMaxSize = 10_000;
+
+    private Password password = new Password ();
+
+    private int pageSize = 50;
+
+    // Upper bound for a requested page size of the admin users listing
+    private int maxPageSize = 200;
+
+
+    @Getter
+    @Setter
+    public static class Password {
+
+        // BCrypt cost factor, existing hashes with another cost are rehashed on the next successful login
+        private int strength = 10;
+
+        // 0 -> one worker per available processor
+        private int workers;
+
+        private int queueCapacity = 64;
+    }
 }
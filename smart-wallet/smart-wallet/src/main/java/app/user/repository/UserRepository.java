@@ -1,11 +1,20 @@
 package app.user.repository;
 
+import app.user.model.Country;
 import app.user.model.User;
+import app.user.model.UserPrincipal;
+import app.user.model.UserRole;
+import app.user.model.UserSummary;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,4 +23,40 @@ public interface UserRepository extends JpaRepository <User, UUID> {
 
     @Fetch(FetchMode.JOIN)
     Optional <User> findByUsername(String user);
+
+
+    // Reads at most one row -> cheap emptiness check however many users there are
+    boolean existsByIdIsNotNull();
+
+
+    @Query("SELECT new app.user.model.UserPrincipal(u.id, u.isActive, u.role, u.version) FROM User u WHERE u.id = :userId")
+    Optional <UserPrincipal> findPrincipalById(UUID userId);
+
+
+    @Query("SELECT u.version FROM User u WHERE u.id = :userId")
+    Optional <Long> findVersionById(UUID userId);
+
+
+    @Query("SELECT u.country FROM User u WHERE u.id = :userId")
+    Optional <Country> findCountryById(UUID userId);
+
+
+    // Every filter is optional, a missing one is bound as null and drops out of the plan.
+    // Keyset on (createdOn, id) -> a deep page costs the same as the first one.
+    @Query("""
+            SELECT new app.user.model.UserSummary(u.id, u.username, u.email, u.role, u.country, u.isActive, u.createdOn)
+            FROM User u
+            WHERE (:role IS NULL OR u.role = :role)
+              AND (:country IS NULL OR u.country = :country)
+              AND (:active IS NULL OR u.isActive = :active)
+              AND (:usernamePrefix IS NULL OR u.username LIKE :usernamePrefix ESCAPE '!')
+              AND (:createdOn IS NULL OR u.createdOn < :createdOn OR (u.createdOn = :createdOn AND u.id < :id))
+            ORDER BY u.createdOn DESC, u.id DESC
+            """)
+    List <UserSummary> findSummaries(UserRole role, Country country, Boolean active, String usernamePrefix,
+                                     LocalDateTime createdOn, UUID id, Pageable pageable);
+
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List <String> findExistingUsernames(Collection <String> usernames);
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package app.user.service;
+
+import app.exception.DomainException;
+import app.user.property.UserProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// BCrypt hashing and verification on their own core sized pool with a bounded queue.
+// A login burst can then only keep these workers busy -> request threads stay free for transfers and page loads,
+// and once the queue is full further logins fail fast with 503 instead of piling up.
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile ("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserProperties userProperties;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService bulkExecutor;
+    private final int bulkWorkers;
+    private final Counter rejected;
+
+
+    @Autowired
+    public PasswordHasher(PasswordEncoder passwordEncoder, UserProperties userProperties, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.userProperties = userProperties;
+
+        UserProperties.Password properties = userProperties.getPassword ();
+        int workers = properties.getWorkers () > 0 ? properties.getWorkers () : Runtime.getRuntime ().availableProcessors ();
+        AtomicInteger threads = new AtomicInteger ();
+
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<> (properties.getQueueCapacity ());
+        this.executor = new ThreadPoolExecutor (workers, workers, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread (runnable, "password-hasher-" + threads.incrementAndGet ());
+            thread.setDaemon (true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy ());
+
+        // Bulk hashing keeps one core back for the login workers and request threads
+        this.bulkWorkers = Math.max (1, Runtime.getRuntime ().availableProcessors () - 1);
+        AtomicInteger bulkThreads = new AtomicInteger ();
+        this.bulkExecutor = Executors.newFixedThreadPool (bulkWorkers, runnable -> {
+            Thread thread = new Thread (runnable, "password-bulk-hasher-" + bulkThreads.incrementAndGet ());
+            thread.setDaemon (true);
+            return thread;
+        });
+
+        this.rejected = meterRegistry.counter ("user.password.rejected");
+        meterRegistry.gauge ("user.password.queue", queue, BlockingQueue::size);
+    }
+
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow ();
+        bulkExecutor.shutdownNow ();
+    }
+
+
+
+    public boolean matches (String rawPassword, String encodedPassword) {
+        return submit (() -> passwordEncoder.matches (rawPassword, encodedPassword));
+    }
+
+
+    public String encode (String rawPassword) {
+        return submit (() -> passwordEncoder.encode (rawPassword));
+    }
+
+
+    // Bulk registration only -> one chunk per bulk worker on a dedicated cores-1 pool,
+    // so neither the login workers nor the common fork join pool are held for the whole import
+    public List<String> encodeAll (List<String> rawPasswords) {
+
+        int chunkSize = Math.max (1, (rawPasswords.size () + bulkWorkers - 1) / bulkWorkers);
+        List<Future<List<String>>> chunks = new ArrayList<> ();
+        for (int from = 0; from < rawPasswords.size (); from += chunkSize) {
+            List<String> chunk = rawPasswords.subList (from, Math.min (from + chunkSize, rawPasswords.size ()));
+            chunks.add (bulkExecutor.submit (() -> chunk.stream ().map (passwordEncoder::encode).toList ()));
+        }
+
+        List<String> hashes = new ArrayList<> (rawPasswords.size ());
+        for (Future<List<String>> chunk : chunks) {
+            hashes.addAll (await (chunk));
+        }
+
+        return hashes;
+    }
+
+
+    // Any hash made with a different cost than the configured one -> cost can be tuned up or down, users follow on their next login
+    public boolean needsRehash (String encodedPassword) {
+
+        Matcher matcher = BCRYPT_COST.matcher (encodedPassword);
+
+        return !matcher.find () || Integer.parseInt (matcher.group (1)) != userProperties.getPassword ().getStrength ();
+    }
+
+
+
+    private <T> T submit (Callable<T> task) {
+
+        try {
+            return await (executor.submit (task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment ();
+            throw new DomainException ("Too many sign in attempts at the moment, please try again shortly.", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+
+    private <T> T await (Future<T> future) {
+
+        try {
+            return future.get ();
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new DomainException ("Password check was interrupted.", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause () instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException (e.getCause ());
+        }
+    }
+}
@@ -4,6 +4,8 @@ import app.user.model.Country;
 import app.web.dto.RegisterRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -11,10 +13,12 @@ public class UserInit implements CommandLineRunner {
 
 
     private final UserService userService;
+    private final ApplicationStartup applicationStartup;
 
     @Autowired
-    public UserInit(UserService userService) {
+    public UserInit(UserService userService, ApplicationStartup applicationStartup) {
         this.userService = userService;
+        this.applicationStartup = applicationStartup;
     }
 
 
@@ -23,7 +27,20 @@ public class UserInit implements CommandLineRunner {
     public void run(String... args) throws Exception {
 
 
-        if (!userService.getAllUsers ().isEmpty ()){
+        StartupStep step = applicationStartup.start ("app.user.init");
+
+        try {
+            seedDefaultUser ();
+        } finally {
+            step.end ();
+        }
+    }
+
+
+    private void seedDefaultUser() {
+
+        // Existence probe only -> no user, wallet or subscription is loaded on boot
+        if (userService.hasAnyUsers ()){
             return;
         }
 
@@ -0,0 +1,73 @@
+package app.user.service;
+
+import app.exception.DomainException;
+import app.user.model.UserPrincipal;
+import app.user.property.UserProperties;
+import app.user.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+@Component
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, UserPrincipal> principals;
+
+
+    @Autowired
+    public UserPrincipalCache(UserRepository userRepository, UserProperties userProperties) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder ()
+                .maximumSize (userProperties.getPrincipalCacheMaxSize ())
+                .expireAfterWrite (userProperties.getPrincipalCacheTtl ())
+                .build ();
+    }
+
+
+    public UserPrincipal get(UUID userId) {
+
+        return principals.get (userId, id -> userRepository.findPrincipalById (id)
+                .orElseThrow (() -> new DomainException ("User with id [%s] doesn't exist"
+                        .formatted (id), HttpStatus.BAD_REQUEST)));
+    }
+
+
+    // One primary key read instead of the whole principal -> a principal changed by another instance
+    // (whose invalidate only reached its own cache) is reloaded instead of being trusted until it expires
+    public UserPrincipal getCurrent(UUID userId) {
+
+        UserPrincipal principal = get (userId);
+        Long version = userRepository.findVersionById (userId).orElse (null);
+
+        if (version == null || version != principal.getVersion ()) {
+            principals.invalidate (userId);
+            return get (userId);
+        }
+
+        return principal;
+    }
+
+
+    // Inside a transaction the entry is dropped after the commit, otherwise a concurrent request can cache the old values again
+    public void invalidate(UUID userId) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit () {
+                    principals.invalidate (userId);
+                }
+            });
+            return;
+        }
+
+        principals.invalidate (userId);
+    }
+}
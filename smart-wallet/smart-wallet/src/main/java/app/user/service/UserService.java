@@ -4,50 +4,73 @@ package app.user.service;
 import app.exception.DomainException;
 import app.subscription.model.Subscription;
 import app.subscription.service.SubscriptionService;
+import app.user.model.Country;
 import app.user.model.User;
+import app.user.model.UserCursor;
+import app.user.model.UserPage;
+import app.user.model.UserPrincipal;
 import app.user.model.UserRole;
+import app.user.model.UserSummary;
 import app.user.property.UserProperties;
 import app.user.repository.UserRepository;
 import app.wallet.model.Wallet;
 import app.wallet.service.WalletService;
+import app.web.dto.BulkRegisterResult;
 import app.web.dto.LoginRequest;
 import app.web.dto.RegisterRequest;
 import app.web.dto.UserEditRequest;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @Slf4j
 public class UserService {
 
+    // Users per import transaction, and per IN list of the username check
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final SubscriptionService subscriptionService;
     private final WalletService walletService;
     private final UserProperties userProperties;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TransactionTemplate transactionTemplate;
 
 
     //Constructor
     @Autowired
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder,
+                       PasswordHasher passwordHasher,
                        SubscriptionService subscriptionService,
                        WalletService walletService,
-                       UserProperties userProperties) {
+                       UserProperties userProperties,
+                       UserPrincipalCache userPrincipalCache,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.subscriptionService = subscriptionService;
         this.walletService = walletService;
         this.userProperties = userProperties;
+        this.userPrincipalCache = userPrincipalCache;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
     }
 
 
@@ -65,11 +88,19 @@ public class UserService {
 
         User user = optionalUser.get ();
 
-        if (!passwordEncoder.matches (loginRequest.getPassword (), user.getPassword ())) {
+        if (!passwordHasher.matches (loginRequest.getPassword (), user.getPassword ())) {
             throw new DomainException ("User with username=[%s] or password [%s] are incorrect."
                     .formatted (loginRequest.getUsername (), loginRequest.getPassword ()), HttpStatus.BAD_REQUEST);
         }
 
+        // Cost factor was changed since this hash was made -> the raw password is known only now, so rehash it
+        if (passwordHasher.needsRehash (user.getPassword ())) {
+            user.setPassword (passwordHasher.encode (loginRequest.getPassword ()));
+            user.setUpdatedOn (LocalDateTime.now ());
+            userRepository.save (user);
+            log.info ("Rehashed password of user [%s] with the configured cost factor.".formatted (user.getId ()));
+        }
+
         return user;
     }
 
@@ -100,6 +131,89 @@ public class UserService {
 
 
 
+    // Partner onboarding: usernames are checked set based, passwords hashed in parallel,
+    // and users, default subscriptions and wallets inserted in JDBC batches, one transaction per chunk.
+    // A failing chunk stops the import: earlier chunks stay committed and the result names every user not created.
+    // Already registered usernames are skipped -> resubmitting the same file resumes the import.
+    public BulkRegisterResult registerAll(List <RegisterRequest> registerRequests) {
+
+        long start = System.currentTimeMillis ();
+        List <String> skipped = new ArrayList<> ();
+
+        Map <String, RegisterRequest> requested = new LinkedHashMap<> ();
+        for (RegisterRequest registerRequest : registerRequests) {
+            if (requested.putIfAbsent (registerRequest.getUsername (), registerRequest) != null) {
+                skipped.add (registerRequest.getUsername ());
+            }
+        }
+
+        List <String> usernames = new ArrayList<> (requested.keySet ());
+        Set <String> existing = new HashSet<> ();
+        for (int from = 0; from < usernames.size (); from += IMPORT_CHUNK_SIZE) {
+            existing.addAll (userRepository.findExistingUsernames (usernames.subList (from, Math.min (from + IMPORT_CHUNK_SIZE, usernames.size ()))));
+        }
+
+        skipped.addAll (existing);
+        List <RegisterRequest> accepted = requested.values ().stream ()
+                .filter (registerRequest -> !existing.contains (registerRequest.getUsername ()))
+                .toList ();
+
+        List <String> hashes = passwordHasher.encodeAll (accepted.stream ().map (RegisterRequest::getPassword).toList ());
+
+        List <User> users = new ArrayList<> (accepted.size ());
+        for (int i = 0; i < accepted.size (); i++) {
+            users.add (initializeNewUserAccount (accepted.get (i), hashes.get (i)));
+        }
+
+        int created = 0;
+        String error = null;
+        for (int from = 0; from < users.size (); from += IMPORT_CHUNK_SIZE) {
+            List <User> chunk = users.subList (from, Math.min (from + IMPORT_CHUNK_SIZE, users.size ()));
+
+            try {
+                transactionTemplate.executeWithoutResult (status -> {
+                    userRepository.saveAll (chunk);
+                    subscriptionService.createDefaultSubscriptions (chunk);
+                    walletService.createNewWallets (chunk);
+                });
+            } catch (RuntimeException e) {
+                log.error ("Bulk registration chunk starting at user [%s] failed, [%d] users created before it."
+                        .formatted (chunk.get (0).getUsername (), created), e);
+                error = e.getMessage ();
+                break;
+            }
+            created += chunk.size ();
+        }
+
+        List <String> failed = users.subList (created, users.size ()).stream ().map (User::getUsername).toList ();
+
+        log.info ("Bulk registered [%d] of [%d] users in [%d] ms, skipped [%d], failed [%d]."
+                .formatted (created, registerRequests.size (), System.currentTimeMillis () - start, skipped.size (), failed.size ()));
+
+        return BulkRegisterResult.builder ()
+                .requested (registerRequests.size ())
+                .created (created)
+                .skippedUsernames (skipped)
+                .failedUsernames (failed)
+                .firstFailedIndex (failed.isEmpty () ? null : indexOf (registerRequests, failed.get (0)))
+                .error (error)
+                .build ();
+    }
+
+
+
+    private static int indexOf (List <RegisterRequest> registerRequests, String username) {
+
+        for (int i = 0; i < registerRequests.size (); i++) {
+            if (registerRequests.get (i).getUsername ().equals (username)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+
     public void editUserDetails(UUID userId, UserEditRequest userEditRequest) {
 
         User user = getById(userId);
@@ -109,8 +223,20 @@ public class UserService {
         user.setEmail(userEditRequest.getEmail());
         user.setProfilePicture(userEditRequest.getProfilePicture());
 
-        userRepository.save(user);
+        saveUnchangedSinceRead (user);
+    }
+
+
+
+    // The user is read and saved in separate transactions -> @Version rejects the save when someone changed the user in between
+    private void saveUnchangedSinceRead (User user) {
 
+        try {
+            userRepository.save (user);
+        } catch (OptimisticLockingFailureException e) {
+            throw new DomainException ("User with id [%s] was changed by another request, reload and try again."
+                    .formatted (user.getId ()), HttpStatus.CONFLICT);
+        }
     }
 
 
@@ -118,9 +244,15 @@ public class UserService {
     //create method initialize
     private User initializeNewUserAccount(RegisterRequest dto) {
 
+        return initializeNewUserAccount (dto, passwordHasher.encode (dto.getPassword ()));
+    }
+
+
+    private User initializeNewUserAccount(RegisterRequest dto, String passwordHash) {
+
         return User.builder ()
                 .username (dto.getUsername ())
-                .password (passwordEncoder.encode (dto.getPassword ()))
+                .password (passwordHash)
                 .role (userProperties.getDefaultRole ())
                 .isActive (userProperties.isActiveByDefault ())
                 .country (dto.getCountry ())
@@ -130,8 +262,32 @@ public class UserService {
     }
 
 
-    public List <User> getAllUsers() {
-        return userRepository.findAll ();
+    public boolean hasAnyUsers() {
+        return userRepository.existsByIdIsNotNull ();
+    }
+
+
+    // Admin listing, newest first; every filter is optional, the username filter matches a prefix
+    public UserPage getUserPage(UserRole role, Country country, Boolean active, String username, String after, Integer size) {
+
+        int requested = size == null ? userProperties.getPageSize () : size;
+        int limit = Math.max (1, Math.min (requested, userProperties.getMaxPageSize ()));
+
+        UserCursor cursor = after == null ? null : UserCursor.decode (after);
+        String usernamePrefix = username == null || username.isBlank () ? null : escapeLike (username.trim ()) + "%";
+
+        List <UserSummary> users = userRepository.findSummaries (role, country, active, usernamePrefix,
+                cursor == null ? null : cursor.createdOn (), cursor == null ? null : cursor.id (), PageRequest.of (0, limit + 1));
+
+        boolean hasMore = users.size () > limit;
+        List <UserSummary> page = users.subList (0, Math.min (limit, users.size ()));
+
+        return new UserPage (page, hasMore ? UserCursor.of (page.get (page.size () - 1)) : null);
+    }
+
+
+    private static String escapeLike(String value) {
+        return value.replace ("!", "!!").replace ("%", "!%").replace ("_", "!_");
     }
 
 
@@ -144,9 +300,23 @@ public class UserService {
     }
 
 
+    // Active flag and role only, served from the principal cache -> no user load on every request
+    public UserPrincipal getPrincipal(UUID userId) {
+
+        return userPrincipalCache.get (userId);
+    }
+
+
+    // Same as getPrincipal, but checked against the user's version -> for admin pages, where a stale role matters
+    public UserPrincipal getCurrentPrincipal(UUID userId) {
+
+        return userPrincipalCache.getCurrent (userId);
+    }
+
+
     public void switchStatus(UUID userId) {
 
-        User user = userRepository.getById (userId);
+        User user = getById (userId);
         user.setActive (!user.isActive ());
 //        if (user.isActive ()){
 //            user.setActive (false);
@@ -154,13 +324,14 @@ public class UserService {
 //            user.setActive (true);
 //        }
 
-        userRepository.save (user);
+        saveUnchangedSinceRead (user);
+        userPrincipalCache.invalidate (userId);
     }
 
 
     public void switchRole(UUID userId) {
 
-        User user = userRepository.getById (userId);
+        User user = getById (userId);
 
         if (user.getRole () == UserRole.USER){
             user.setRole (UserRole.ADMIN);
@@ -168,6 +339,7 @@ public class UserService {
             user.setRole (UserRole.USER);
         }
 
-        userRepository.save (user);
+        saveUnchangedSinceRead (user);
+        userPrincipalCache.invalidate (userId);
     }
 }
@@ -0,0 +1,7 @@
+package app.wallet.model;
+
+import java.util.UUID;
+
+// The wallet transfers to a username are credited to -> the owner's oldest ACTIVE wallet
+public record PrimaryWallet(UUID ownerId, UUID walletId) {
+}
@@ -0,0 +1,10 @@
+package app.wallet.model;
+
+import java.util.UUID;
+
+public interface ReceiverWallet {
+
+    String getUsername();
+
+    UUID getWalletId();
+}
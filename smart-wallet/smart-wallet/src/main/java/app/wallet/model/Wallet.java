@@ -1,15 +1,21 @@
 package app.wallet.model;
 
+import app.money.Money;
 import app.user.model.User;
+import app.wallet.service.WalletChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Currency;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        // Receiver lookup -> the oldest ACTIVE wallet of an owner is the first entry of its range
+        @Index(name = "idx_wallet_owner_status_created_on", columnList = "owner_id, status, created_on")
+})
+@EntityListeners(WalletChangeListener.class)
 @Getter
 @Builder
 @Setter
@@ -21,7 +27,7 @@ public class Wallet {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User owner;
 
     @Column(nullable = false)
@@ -29,7 +35,7 @@ public class Wallet {
     private WalletStatus status;
 
     @Column(nullable = false)
-    private BigDecimal balance;
+    private Money balance;
 
     @Column(nullable = false)
     private Currency currency;
@@ -41,4 +47,20 @@ public class Wallet {
     @Column(nullable = false)
     private LocalDateTime  updatedOn;
 
-}
\ No newline at end of file
+
+    // State as last read from or written to the table -> lets the change listener tell a status or owner change from a balance update
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private WalletStatus loadedStatus;
+
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private UUID loadedOwnerId;
+
+
+    public void rememberReceiverState () {
+
+        this.loadedStatus = status;
+        this.loadedOwnerId = owner == null ? null : owner.getId ();
+    }
+}
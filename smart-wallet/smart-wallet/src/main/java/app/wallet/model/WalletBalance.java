@@ -0,0 +1,18 @@
+package app.wallet.model;
+
+import app.money.Money;
+
+import java.util.Currency;
+import java.util.UUID;
+
+// Read only view of the wallet fields needed to record a transaction, without loading the owner
+public interface WalletBalance {
+
+    UUID getOwnerId();
+
+    WalletStatus getStatus();
+
+    Money getBalance();
+
+    Currency getCurrency();
+}
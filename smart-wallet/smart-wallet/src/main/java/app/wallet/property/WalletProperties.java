@@ -0,0 +1,58 @@
+package app.wallet.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "domain.wallet.properties")
+public class WalletProperties {
+
+    private Lanes lanes = new Lanes ();
+
+    private Transfers transfers = new Transfers ();
+
+    private ReceiverCache receiverCache = new ReceiverCache ();
+
+
+    @Getter
+    @Setter
+    public static class Lanes {
+
+        // When enabled every balance mutation for a wallet is applied by a single lane thread
+        private boolean enabled;
+
+        private int count = Runtime.getRuntime ().availableProcessors ();
+
+        private int batchSize = 64;
+
+        private int queueCapacity = 10_000;
+    }
+
+
+    @Getter
+    @Setter
+    public static class Transfers {
+
+        // Attempts in total when a transfer loses a deadlock or times out waiting for a wallet row lock
+        private int maxAttempts = 3;
+
+        private Duration retryBackoff = Duration.ofMillis (50);
+    }
+
+
+    @Getter
+    @Setter
+    public static class ReceiverCache {
+
+        private long maxSize = 10_000;
+
+        // Upper bound on how long an entry can outlive a change the listener didn't see (e.g. a manual UPDATE)
+        private Duration expireAfterWrite = Duration.ofMinutes (10);
+    }
+}
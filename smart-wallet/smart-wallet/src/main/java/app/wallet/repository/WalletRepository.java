@@ -1,13 +1,87 @@
 package app.wallet.repository;
 
+import app.money.Money;
+import app.wallet.model.PrimaryWallet;
+import app.wallet.model.ReceiverWallet;
 import app.wallet.model.Wallet;
+import app.wallet.model.WalletBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, UUID> {
 
     List <Wallet> findAllByOwnerUsername (String username);
-}
\ No newline at end of file
+
+
+    List <Wallet> findAllByOwnerIdOrderByCreatedOnDesc (UUID ownerId);
+
+
+    Optional <Wallet> findFirstByOwnerIdOrderByCreatedOnDesc (UUID ownerId);
+
+
+    // Index range scan on (owner_id, status, created_on) after the unique username lookup -> no wallet entity or owner graph is loaded
+    @Query("""
+            SELECT new app.wallet.model.PrimaryWallet(o.id, w.id) FROM Wallet w JOIN w.owner o
+            WHERE o.username = :username AND w.status = app.wallet.model.WalletStatus.ACTIVE
+            ORDER BY w.createdOn, w.id
+            """)
+    List <PrimaryWallet> findPrimaryActiveWallet (String username, Pageable pageable);
+
+
+    // Resolves the ACTIVE wallets of many receivers in one round trip.
+    // Same order as findPrimaryActiveWallet -> the first row per username is the wallet a single transfer would credit.
+    @Query("""
+            SELECT w.owner.username AS username, w.id AS walletId FROM Wallet w
+            WHERE w.owner.username IN :usernames AND w.status = app.wallet.model.WalletStatus.ACTIVE
+            ORDER BY w.createdOn, w.id
+            """)
+    List <ReceiverWallet> findActiveWalletsByOwnerUsernames (Collection <String> usernames);
+
+
+    // SELECT ... FOR UPDATE -> the row stays locked until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id = :walletId")
+    Optional <Wallet> findByIdForUpdate (UUID walletId);
+
+
+    // Rows are scanned (and locked) in primary key order, the same order single transfers lock in
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :walletIds ORDER BY w.id")
+    List <Wallet> findAllByIdForUpdate (Collection <UUID> walletIds);
+
+
+    // Guarded debit -> 1 when the wallet is ACTIVE and has enough balance, 0 (nothing changed) otherwise
+    @Modifying
+    @Query("""
+            UPDATE Wallet w SET w.balance = w.balance - :amount, w.updatedOn = :now
+            WHERE w.id = :walletId AND w.status = app.wallet.model.WalletStatus.ACTIVE AND w.balance >= :amount
+            """)
+    int debit (UUID walletId, Money amount, LocalDateTime now);
+
+
+    // Guarded credit -> 1 when the wallet is ACTIVE, 0 (nothing changed) otherwise
+    @Modifying
+    @Query("""
+            UPDATE Wallet w SET w.balance = w.balance + :amount, w.updatedOn = :now
+            WHERE w.id = :walletId AND w.status = app.wallet.model.WalletStatus.ACTIVE
+            """)
+    int credit (UUID walletId, Money amount, LocalDateTime now);
+
+
+    @Query("""
+            SELECT w.owner.id AS ownerId, w.status AS status, w.balance AS balance, w.currency AS currency
+            FROM Wallet w WHERE w.id = :walletId
+            """)
+    Optional <WalletBalance> findBalanceById (UUID walletId);
+}
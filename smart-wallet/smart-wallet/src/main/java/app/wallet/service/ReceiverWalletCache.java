@@ -0,0 +1,70 @@
+package app.wallet.service;
+
+import app.wallet.model.PrimaryWallet;
+import app.wallet.property.WalletProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+// username -> primary wallet of the receivers transfers were recently sent to.
+// Only found wallets are kept, so a wallet created later never has to displace a cached "none".
+@Component
+public class ReceiverWalletCache {
+
+    private final Cache<String, PrimaryWallet> primaryWallets;
+
+
+    @Autowired
+    public ReceiverWalletCache(WalletProperties walletProperties) {
+
+        WalletProperties.ReceiverCache properties = walletProperties.getReceiverCache ();
+        this.primaryWallets = Caffeine.newBuilder ()
+                .maximumSize (properties.getMaxSize ())
+                .expireAfterWrite (properties.getExpireAfterWrite ())
+                .build ();
+    }
+
+
+
+    public PrimaryWallet get (String username) {
+
+        return primaryWallets.getIfPresent (username);
+    }
+
+
+    public void put (String username, PrimaryWallet primaryWallet) {
+
+        primaryWallets.put (username, primaryWallet);
+    }
+
+
+    // Dropped once the change is committed, so a lookup before the commit can't refill the entry with the old row.
+    // A lookup that read the row before the commit can still put it after the eviction. That is harmless: the
+    // receiver row is locked and its status checked again before it is credited, and the entry expires anyway.
+    public void evictOwner (UUID ownerId) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive ()) {
+            TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                @Override
+                public void afterCommit () {
+                    removeOwner (ownerId);
+                }
+            });
+            return;
+        }
+
+        removeOwner (ownerId);
+    }
+
+
+    // Wallet status and owner changes are rare, a scan of the bounded cache is cheaper than keeping a reverse index
+    private void removeOwner (UUID ownerId) {
+
+        primaryWallets.asMap ().values ().removeIf (primaryWallet -> primaryWallet.ownerId ().equals (ownerId));
+    }
+}
@@ -0,0 +1,72 @@
+package app.wallet.service;
+
+import app.wallet.model.Wallet;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.UUID;
+
+// Keeps the receiver cache in line with the wallet table. Balance updates (every locked transfer) leave it alone,
+// only a changed status or owner evicts the owners involved.
+@Component
+public class WalletChangeListener {
+
+    private final ReceiverWalletCache receiverWalletCache;
+
+
+    @Autowired
+    public WalletChangeListener(ReceiverWalletCache receiverWalletCache) {
+        this.receiverWalletCache = receiverWalletCache;
+    }
+
+
+
+    @PostLoad
+    @PostPersist
+    public void remember (Wallet wallet) {
+
+        wallet.rememberReceiverState ();
+    }
+
+
+    @PostUpdate
+    public void updated (Wallet wallet) {
+
+        UUID ownerId = ownerId (wallet);
+
+        if (wallet.getLoadedStatus () != wallet.getStatus () || !Objects.equals (wallet.getLoadedOwnerId (), ownerId)) {
+            evict (wallet.getLoadedOwnerId ());
+            evict (ownerId);
+        }
+
+        wallet.rememberReceiverState ();
+    }
+
+
+    @PostRemove
+    public void removed (Wallet wallet) {
+
+        evict (ownerId (wallet));
+    }
+
+
+
+    private void evict (UUID ownerId) {
+
+        if (ownerId != null) {
+            receiverWalletCache.evictOwner (ownerId);
+        }
+    }
+
+
+    // The id of a lazy owner proxy is read without initializing it
+    static UUID ownerId (Wallet wallet) {
+
+        return wallet.getOwner () == null ? null : wallet.getOwner ().getId ();
+    }
+}
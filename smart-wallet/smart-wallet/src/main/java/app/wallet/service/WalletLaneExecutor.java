@@ -0,0 +1,231 @@
+package app.wallet.service;
+
+import app.exception.DomainException;
+import app.wallet.property.WalletProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// Routes every mutation of a wallet to one of N single threaded lanes (hash of the wallet id).
+// A lane applies the mutations in arrival order and commits everything it drained from its queue in one transaction.
+// That transaction is the only group commit of the ledger: the transaction records of the whole batch are inserted
+// at its commit as JDBC batches, atomically with the balance changes they describe.
+// Only top ups and charges go through the lanes, and only with domain.wallet.properties.lanes.enabled (off by default).
+// Transfers, bulk payouts and upgrades are not group committed -> each one commits its own transaction.
+//
+// Lanes are a throughput optimisation, not what keeps balances correct. A caller that already has a transaction
+// (subscription upgrade -> charge) runs the mutation in place and bypasses the lane, so two mutations of one wallet
+// can still run concurrently. Correctness rests on every balance change being a guarded UPDATE (WalletRepository
+// debit/credit) or happening under the wallet's row lock (transfers) -> concurrent mutations never lose an update.
+@Slf4j
+@Component
+public class WalletLaneExecutor {
+
+    private static final ThreadLocal<Boolean> ON_LANE = ThreadLocal.withInitial (() -> false);
+
+    private final WalletProperties walletProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    private Lane[] lanes;
+
+
+    @Autowired
+    public WalletLaneExecutor(WalletProperties walletProperties, PlatformTransactionManager transactionManager) {
+        this.walletProperties = walletProperties;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+    }
+
+
+    @PostConstruct
+    public void start() {
+
+        WalletProperties.Lanes properties = walletProperties.getLanes ();
+
+        if (!properties.isEnabled ()) {
+            return;
+        }
+
+        lanes = new Lane[Math.max (1, properties.getCount ())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane (i, properties.getQueueCapacity (), Math.max (1, properties.getBatchSize ()));
+            lanes[i].thread.start ();
+        }
+
+        log.info ("Started [%d] wallet lanes with batch size [%d].".formatted (lanes.length, properties.getBatchSize ()));
+    }
+
+
+    @PreDestroy
+    public void stop() {
+
+        if (lanes == null) {
+            return;
+        }
+
+        for (Lane lane : lanes) {
+            lane.thread.interrupt ();
+        }
+    }
+
+
+
+    // Runs the mutation in its own transaction, on the wallet's lane when lanes are enabled.
+    // Callers which already have a transaction (e.g. subscription upgrade) join it instead, so their unit of work stays atomic
+    // -> such mutations skip the lane, see the class comment.
+    public <T> T execute(UUID walletId, Supplier<T> mutation) {
+
+        if (lanes == null || ON_LANE.get () || TransactionSynchronizationManager.isActualTransactionActive ()) {
+            return transactionTemplate.execute (status -> mutation.get ());
+        }
+
+        Lane lane = lanes[Math.floorMod (walletId.hashCode (), lanes.length)];
+        LaneTask<T> task = new LaneTask<> (mutation);
+
+        if (!lane.queue.offer (task)) {
+            throw new DomainException ("Wallet with id [%s] is busy, please try again later."
+                    .formatted (walletId), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        try {
+            return task.future.join ();
+        } catch (CompletionException e) {
+            if (e.getCause () instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+
+
+    private class Lane implements Runnable {
+
+        private final BlockingQueue<LaneTask<?>> queue;
+        private final int batchSize;
+        private final Thread thread;
+
+        private Lane(int index, int queueCapacity, int batchSize) {
+            this.queue = new ArrayBlockingQueue<> (queueCapacity);
+            this.batchSize = batchSize;
+            this.thread = new Thread (this, "wallet-lane-" + index);
+            this.thread.setDaemon (true);
+        }
+
+        @Override
+        public void run() {
+
+            ON_LANE.set (true);
+            List<LaneTask<?>> batch = new ArrayList<> (batchSize);
+
+            while (!Thread.currentThread ().isInterrupted ()) {
+                try {
+                    LaneTask<?> first = queue.poll (1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+
+                    batch.add (first);
+                    queue.drainTo (batch, batchSize - 1);
+                    applyBatch (batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread ().interrupt ();
+                } finally {
+                    batch.clear ();
+                }
+            }
+
+            List<LaneTask<?>> pending = new ArrayList<> ();
+            queue.drainTo (pending);
+            pending.forEach (task -> task.future.completeExceptionally (
+                    new DomainException ("Wallet lanes are shutting down.", HttpStatus.SERVICE_UNAVAILABLE)));
+        }
+
+        private void applyBatch(List<LaneTask<?>> batch) {
+
+            try {
+                applyInTransaction (batch);
+                batch.forEach (LaneTask::complete);
+                return;
+            } catch (RuntimeException e) {
+                if (batch.size () == 1) {
+                    batch.get (0).future.completeExceptionally (e);
+                    return;
+                }
+                log.warn ("Wallet lane batch of [%d] mutations rolled back, applying them one by one.".formatted (batch.size ()));
+            }
+
+            // Nothing from the failed batch was committed (see applyInTransaction), so every mutation is replayed in its own transaction
+            for (LaneTask<?> task : batch) {
+                try {
+                    applyInTransaction (List.of (task));
+                    task.complete ();
+                } catch (RuntimeException e) {
+                    task.future.completeExceptionally (e);
+                }
+            }
+        }
+
+        // Only throws when the transaction didn't commit. Spring rethrows a failing afterCommit callback once the
+        // commit is done -> such a failure is only logged, the mutations are applied and must not be replayed.
+        private void applyInTransaction(List<LaneTask<?>> tasks) {
+
+            AtomicBoolean committed = new AtomicBoolean ();
+            try {
+                transactionTemplate.executeWithoutResult (status -> {
+                    TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                        @Override
+                        public void afterCompletion (int completionStatus) {
+                            committed.set (completionStatus == STATUS_COMMITTED);
+                        }
+                    });
+                    tasks.forEach (LaneTask::apply);
+                });
+            } catch (RuntimeException e) {
+                if (!committed.get ()) {
+                    throw e;
+                }
+                log.error ("Wallet lane batch of [%d] mutations was committed, but a post commit callback failed.".formatted (tasks.size ()), e);
+            }
+        }
+    }
+
+
+
+    private static class LaneTask<T> {
+
+        private final Supplier<T> mutation;
+        private final CompletableFuture<T> future = new CompletableFuture<> ();
+        private T result;
+
+        private LaneTask(Supplier<T> mutation) {
+            this.mutation = mutation;
+        }
+
+        private void apply() {
+            result = mutation.get ();
+        }
+
+        // Only called after the transaction holding the mutation has been committed
+        private void complete() {
+            future.complete (result);
+        }
+    }
+}
@@ -1,27 +1,51 @@
 package app.wallet.service;
 
 import app.exception.DomainException;
+import app.idempotency.service.IdempotencyService;
+import app.money.Money;
 import app.transaction.model.Transaction;
 import app.transaction.model.TransactionStatus;
 import app.transaction.model.TransactionType;
+import app.transaction.service.TransactionMetrics;
 import app.transaction.service.TransactionService;
 import app.user.model.User;
+import app.user.repository.UserRepository;
+import app.wallet.model.PrimaryWallet;
 import app.wallet.model.Wallet;
+import app.wallet.model.WalletBalance;
 import app.wallet.model.WalletStatus;
+import app.wallet.property.WalletProperties;
 import app.wallet.repository.WalletRepository;
+import app.web.dto.BulkTransferItem;
+import app.web.dto.BulkTransferRequest;
+import app.web.dto.BulkTransferResult;
 import app.web.dto.TransferRequest;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Currency;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -29,16 +53,45 @@ public class WalletService {
 
     private static final String SMART_WALLET_LTD = "Smart Wallet LTD";
 
+    // Same order as the binary(16) primary key index -> unsigned comparison of the two halves
+    private static final Comparator <UUID> WALLET_LOCK_ORDER = Comparator
+            .comparing (UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing (UUID::getLeastSignificantBits, Long::compareUnsigned);
+
     private final WalletRepository walletRepository;
+    private final UserRepository userRepository;
     private final TransactionService transactionService;
+    private final WalletLaneExecutor walletLaneExecutor;
+    private final WalletProperties walletProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final IdempotencyService idempotencyService;
+    private final ReceiverWalletCache receiverWalletCache;
+    private final TransactionMetrics transactionMetrics;
 
 
     //Constructor
     @Autowired
     public WalletService(WalletRepository walletRepository,
-                         TransactionService transactionService) {
+                         UserRepository userRepository,
+                         TransactionService transactionService,
+                         WalletLaneExecutor walletLaneExecutor,
+                         WalletProperties walletProperties,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         IdempotencyService idempotencyService,
+                         ReceiverWalletCache receiverWalletCache,
+                         TransactionMetrics transactionMetrics) {
         this.walletRepository = walletRepository;
+        this.userRepository = userRepository;
         this.transactionService = transactionService;
+        this.walletLaneExecutor = walletLaneExecutor;
+        this.walletProperties = walletProperties;
+        this.transactionTemplate = new TransactionTemplate (transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.idempotencyService = idempotencyService;
+        this.receiverWalletCache = receiverWalletCache;
+        this.transactionMetrics = transactionMetrics;
     }
 
 
@@ -46,7 +99,7 @@ public class WalletService {
 
         Wallet wallet = walletRepository.save (initializeNewWallet (user));
 
-        log.info ("Successfully created new wallet with id [%s] and balance [%.2f]."
+        log.info ("Successfully created new wallet with id [%s] and balance [%s]."
                 .formatted (wallet.getId (), wallet.getBalance ()));
 
     }
@@ -54,44 +107,55 @@ public class WalletService {
 
 
 
+    public void createNewWallets(List<User> users) {
+
+        walletRepository.saveAll (users.stream ().map (this::initializeNewWallet).toList ());
+
+        log.info ("Successfully created [%d] new wallets.".formatted (users.size ()));
+    }
+
+
+
+
     //Method change
-    @Transactional
-    public Transaction topUp(UUID walletId, BigDecimal amount) {
+    public Transaction topUp(UUID walletId, Money amount) {
+
+        return transactionMetrics.record ("wallet.top.up", () -> walletLaneExecutor.execute (walletId, () -> applyTopUp (walletId, amount)));
+    }
+
 
-        Wallet wallet = getWalletById (walletId);
+    private Transaction applyTopUp(UUID walletId, Money amount) {
 
+        // Single guarded UPDATE -> no lost updates when top ups for the same wallet race
+        boolean credited = walletRepository.credit (walletId, amount, LocalDateTime.now ()) == 1;
+        WalletBalance wallet = getWalletBalance (walletId);
+        User owner = userRepository.getReferenceById (wallet.getOwnerId ());
 
-        if (wallet.getStatus () == WalletStatus.INACTIVE) {
+
+        if (!credited) {
 
             return transactionService.createNewTransaction (
-                    wallet.getOwner (),
+                    owner,
                     SMART_WALLET_LTD,
                     walletId.toString (),
                     amount,
                     wallet.getBalance (),
-                    wallet.getCurrency (),
                     TransactionType.DEPOSIT,
                     TransactionStatus.FAILED,
-                    "Top Up %.2f".formatted (amount.doubleValue ()),
+                    "Top Up %s".formatted (amount),
                     "Inactive wallet");
         }
 
-        wallet.setBalance (wallet.getBalance ().add (amount));
-        wallet.setUpdatedOn (LocalDateTime.now ());
-
-        walletRepository.save (wallet);
-
 
         return transactionService.createNewTransaction (
-                wallet.getOwner (),
+                owner,
                 SMART_WALLET_LTD,
-                wallet.getId ().toString (),
+                walletId.toString (),
                 amount,
                 wallet.getBalance (),
-                wallet.getCurrency (),
                 TransactionType.DEPOSIT,
                 TransactionStatus.SUCCEEDED,
-                "Top Up %.2f".formatted (amount.doubleValue ()),
+                "Top Up %s".formatted (amount),
                 null);
     }
 
@@ -100,25 +164,102 @@ public class WalletService {
    // Transfer Funds
     public Transaction transferFunds (User sender,  TransferRequest transferRequest){
 
-        Wallet senderWallet = getWalletById (transferRequest.getFromWalledId ());
+        return transactionMetrics.record ("wallet.transfer", () -> applyTransferFunds (sender, transferRequest));
+    }
+
+
+    private Transaction applyTransferFunds (User sender, TransferRequest transferRequest){
+
+        Optional <UUID> receiverWalletIdOptional = findReceiverWalletId (transferRequest.getToUsername ());
+
+        // No money moves for an unknown receiver -> the failed record is written without locking any wallet
+        if (receiverWalletIdOptional.isEmpty ()){
+            return transactionTemplate.execute (status -> completeClaim (recordInvalidTransfer (sender, transferRequest)));
+        }
+
+        return inTransactionWithRetry (transferRequest.getFromWalledId (), () -> completeClaim (applyTransfer (sender, transferRequest, receiverWalletIdOptional.get ())));
+    }
+
+
+    // Same transaction as the transfer -> the money movement and its idempotency key are committed together
+    private Transaction completeClaim (Transaction transaction){
+
+        idempotencyService.completeClaim (transaction.getId ());
+        return transaction;
+    }
+
 
-        Optional <Wallet> receiverWalletOptional = walletRepository.findAllByOwnerUsername (transferRequest.getToUsername ())
+
+    // Repeated receivers (merchants, payroll) are answered from the cache. A stale entry can't misdirect money:
+    // the receiver row is locked and its status checked again before it is credited.
+    private Optional <UUID> findReceiverWalletId (String username){
+
+        PrimaryWallet cached = receiverWalletCache.get (username);
+        if (cached != null){
+            return Optional.of (cached.walletId ());
+        }
+
+        Optional <PrimaryWallet> primaryWallet = walletRepository.findPrimaryActiveWallet (username, PageRequest.of (0, 1))
                 .stream ()
-                .filter (w -> w.getStatus () == WalletStatus.ACTIVE)
                 .findFirst ();
+        primaryWallet.ifPresent (wallet -> receiverWalletCache.put (username, wallet));
 
-        String transferDescription = "Transfer from %s to %s, for %.2f".formatted (sender.getUsername (), transferRequest.getToUsername (), transferRequest.getAmount ());
+        return primaryWallet.map (PrimaryWallet::walletId);
+    }
 
 
-        if (receiverWalletOptional.isEmpty ()){
+
+    // Bulk payout -> every receiver is resolved in one query, the sender is debited once for the total
+    // and all credits and transaction records are flushed as JDBC batches in a single transaction
+    public List <BulkTransferResult> bulkTransfer (User sender, BulkTransferRequest bulkTransferRequest){
+
+        return inTransactionWithRetry (bulkTransferRequest.getFromWalletId (), () -> applyBulkTransfer (sender, bulkTransferRequest));
+    }
+
+
+
+    private Transaction recordInvalidTransfer (User sender, TransferRequest transferRequest){
+
+        UUID senderWalletId = transferRequest.getFromWalledId ();
+        Money amount = Money.of (transferRequest.getAmount ());
+        WalletBalance senderWallet = getWalletBalance (senderWalletId);
+        requireOwner (senderWallet.getOwnerId (), sender, senderWalletId);
+
+        return transactionService.createNewTransaction (
+                sender,
+                senderWalletId.toString (),
+                transferRequest.getToUsername (),
+                amount,
+                senderWallet.getBalance (),
+                TransactionType.WITHDRAWAL,
+                TransactionStatus.FAILED,
+                "Transfer from %s to %s, for %s".formatted (sender.getUsername (), transferRequest.getToUsername (), amount),
+                "Invalid criteria transfer!"
+        );
+    }
+
+
+    private Transaction applyTransfer (User sender, TransferRequest transferRequest, UUID receiverWalletId){
+
+        UUID senderWalletId = transferRequest.getFromWalledId ();
+        Money amount = Money.of (transferRequest.getAmount ());
+
+        String transferDescription = "Transfer from %s to %s, for %s".formatted (sender.getUsername (), transferRequest.getToUsername (), amount);
+
+        Map <UUID, Wallet> lockedWallets = lockInOrder (senderWalletId, receiverWalletId);
+        Wallet senderWallet = lockedWallets.get (senderWalletId);
+        Wallet receiverWallet = lockedWallets.get (receiverWalletId);
+        requireOwner (senderWallet.getOwner ().getId (), sender, senderWalletId);
+
+        // Both rows are locked from here on, so the checks below can't go stale before commit
+        if (receiverWallet.getStatus () != WalletStatus.ACTIVE){
 
             return transactionService.createNewTransaction (
                     sender,
-                    senderWallet.getId ().toString (),
+                    senderWalletId.toString (),
                     transferRequest.getToUsername (),
-                    transferRequest.getAmount (),
+                    amount,
                     senderWallet.getBalance (),
-                    senderWallet.getCurrency (),
                     TransactionType.WITHDRAWAL,
                     TransactionStatus.FAILED,
                     transferDescription,
@@ -126,24 +267,52 @@ public class WalletService {
             );
         }
 
-        Transaction withdrawal = charge (sender, senderWallet.getId (), transferRequest.getAmount (), transferDescription);
+        String failureReason = null;
+        if (senderWallet.getStatus () == WalletStatus.INACTIVE){
+            failureReason = "Inactive wallet status!";
+        }
+        if (senderWallet.getBalance ().isLessThan (amount)){
+            failureReason = "Insufficient funds!";
+        }
 
-        if (withdrawal.getStatus () == TransactionStatus.FAILED){
-            return withdrawal;
+        if (failureReason != null){
+            return transactionService.createNewTransaction (
+                    sender,
+                    senderWalletId.toString (),
+                    SMART_WALLET_LTD,
+                    amount,
+                    senderWallet.getBalance (),
+                    TransactionType.WITHDRAWAL,
+                    TransactionStatus.FAILED,
+                    transferDescription,
+                    failureReason
+            );
         }
 
-        Wallet receiverWallet = receiverWalletOptional.get ();
-        receiverWallet.setBalance (receiverWallet.getBalance ().add (transferRequest.getAmount ()));
-        receiverWallet.setUpdatedOn (LocalDateTime.now ());
+        LocalDateTime now = LocalDateTime.now ();
+
+        senderWallet.setBalance (senderWallet.getBalance ().minus (amount));
+        senderWallet.setUpdatedOn (now);
 
-        walletRepository.save (receiverWallet);
+        receiverWallet.setBalance (receiverWallet.getBalance ().plus (amount));
+        receiverWallet.setUpdatedOn (now);
+
+        Transaction withdrawal = transactionService.createNewTransaction (
+                sender,
+                senderWalletId.toString (),
+                SMART_WALLET_LTD,
+                amount,
+                senderWallet.getBalance (),
+                TransactionType.WITHDRAWAL,
+                TransactionStatus.SUCCEEDED,
+                transferDescription,
+                null);
 
         transactionService.createNewTransaction (receiverWallet.getOwner (),
-                senderWallet.getId ().toString (),
+                senderWalletId.toString (),
                 receiverWallet.getId ().toString (),
-                transferRequest.getAmount (),
+                amount,
                 receiverWallet.getBalance (),
-                receiverWallet.getCurrency (),
                 TransactionType.DEPOSIT,
                 TransactionStatus.SUCCEEDED,
                 transferDescription,
@@ -153,42 +322,249 @@ public class WalletService {
     }
 
 
+    private List <BulkTransferResult> applyBulkTransfer (User sender, BulkTransferRequest bulkTransferRequest){
 
+        UUID senderWalletId = bulkTransferRequest.getFromWalletId ();
+        List <BulkTransferItem> transfers = bulkTransferRequest.getTransfers ();
 
-    //Charge method for transaction
-    @Transactional
-    public Transaction charge (User user, UUID walletId, BigDecimal amount, String description){
+        Set <String> usernames = transfers.stream ()
+                .map (BulkTransferItem::getToUsername)
+                .collect (Collectors.toSet ());
 
-        Wallet wallet = getWalletById (walletId);
+        // Rows come oldest first -> putIfAbsent keeps each receiver's primary wallet
+        Map <String, UUID> receiverWalletIds = new HashMap<> ();
+        walletRepository.findActiveWalletsByOwnerUsernames (usernames)
+                .forEach (receiver -> receiverWalletIds.putIfAbsent (receiver.getUsername (), receiver.getWalletId ()));
 
-        //Когато статуса ни е Inactive връщаме една транзакция и не променяме баланса на wallet!!!!
-        //Validate Wallet
-        String failureReason = null;
-        boolean isFailedTransaction = false;
+        Set <UUID> walletIds = new HashSet<> (receiverWalletIds.values ());
+        walletIds.add (senderWalletId);
 
-        if (wallet.getStatus () == WalletStatus.INACTIVE){
+        Map <UUID, Wallet> lockedWallets = new HashMap<> ();
+        meterRegistry.timer ("wallet.transfer.lock.wait").record (() -> walletRepository.findAllByIdForUpdate (walletIds)
+                .forEach (wallet -> lockedWallets.put (wallet.getId (), wallet)));
 
-            isFailedTransaction = true;
-            failureReason = "Inactive wallet status!";
+        Wallet senderWallet = lockedWallets.get (senderWalletId);
+        if (senderWallet == null){
+            throw new DomainException ("Wallet with id [%s] does not exist.".formatted (senderWalletId), HttpStatus.BAD_REQUEST);
+        }
+        requireOwner (senderWallet.getOwner ().getId (), sender, senderWalletId);
+
+        // Amounts are converted once up front, invalid amounts reject the whole request before anything is written
+        List <Money> amounts = transfers.stream ()
+                .map (transfer -> Money.of (transfer.getAmount ()))
+                .toList ();
+
+        Money total = Money.ZERO;
+        for (int i = 0; i < transfers.size (); i++) {
+            if (isActiveReceiver (lockedWallets.get (receiverWalletIds.get (transfers.get (i).getToUsername ())))) {
+                total = total.plus (amounts.get (i));
+            }
+        }
 
+        String senderFailureReason = null;
+        if (senderWallet.getStatus () == WalletStatus.INACTIVE){
+            senderFailureReason = "Inactive wallet status!";
+        }
+        if (senderWallet.getBalance ().isLessThan (total)){
+            senderFailureReason = "Insufficient funds!";
         }
-        // Когато Balance ни е < Amount не променяме баланса на wallet!!!!
-        //Validate Balance
-        if (wallet.getBalance ().compareTo (amount) < 0){
 
-            isFailedTransaction = true;
-            failureReason = "Insufficient funds!";
+        if (senderFailureReason == null){
+            senderWallet.setBalance (senderWallet.getBalance ().minus (total));
+            senderWallet.setUpdatedOn (LocalDateTime.now ());
         }
 
-        // It's a True!!!
-        if (isFailedTransaction){
+        // Running balances, so every record shows the balance left right after its own transfer
+        Money senderBalance = senderFailureReason == null ? senderWallet.getBalance ().plus (total) : senderWallet.getBalance ();
+        List <BulkTransferResult> results = new ArrayList<> (transfers.size ());
+
+        for (int i = 0; i < transfers.size (); i++) {
+
+            BulkTransferItem transfer = transfers.get (i);
+            Money amount = amounts.get (i);
+            Wallet receiverWallet = lockedWallets.get (receiverWalletIds.get (transfer.getToUsername ()));
+            String transferDescription = "Transfer from %s to %s, for %s".formatted (sender.getUsername (), transfer.getToUsername (), amount);
+
+            boolean validReceiver = isActiveReceiver (receiverWallet);
+            String failureReason = validReceiver ? senderFailureReason : "Invalid criteria transfer!";
+
+            if (failureReason != null){
+
+                Transaction failed = transactionService.createNewTransaction (
+                        sender,
+                        senderWalletId.toString (),
+                        validReceiver ? SMART_WALLET_LTD : transfer.getToUsername (),
+                        amount,
+                        senderBalance,
+                        TransactionType.WITHDRAWAL,
+                        TransactionStatus.FAILED,
+                        transferDescription,
+                        failureReason);
+
+                results.add (toBulkTransferResult (transfer, failed));
+                continue;
+            }
+
+            senderBalance = senderBalance.minus (amount);
+            receiverWallet.setBalance (receiverWallet.getBalance ().plus (amount));
+            receiverWallet.setUpdatedOn (LocalDateTime.now ());
+
+            Transaction withdrawal = transactionService.createNewTransaction (
+                    sender,
+                    senderWalletId.toString (),
+                    SMART_WALLET_LTD,
+                    amount,
+                    senderBalance,
+                    TransactionType.WITHDRAWAL,
+                    TransactionStatus.SUCCEEDED,
+                    transferDescription,
+                    null);
+
+            transactionService.createNewTransaction (receiverWallet.getOwner (),
+                    senderWalletId.toString (),
+                    receiverWallet.getId ().toString (),
+                    amount,
+                    receiverWallet.getBalance (),
+                    TransactionType.DEPOSIT,
+                    TransactionStatus.SUCCEEDED,
+                    transferDescription,
+                    null);
+
+            results.add (toBulkTransferResult (transfer, withdrawal));
+        }
+
+        log.info ("Bulk transfer of [%d] items from wallet [%s] completed, total debited [%s]."
+                .formatted (transfers.size (), senderWalletId, senderFailureReason == null ? total : Money.ZERO));
+
+        return results;
+    }
+
+
+    // Money only leaves a wallet on its owner's behalf -> the whole request is rejected before anything is written
+    private void requireOwner (UUID ownerId, User sender, UUID senderWalletId){
+
+        if (!sender.getId ().equals (ownerId)){
+            throw new DomainException ("Wallet with id [%s] doesn't belong to user [%s]."
+                    .formatted (senderWalletId, sender.getUsername ()), HttpStatus.FORBIDDEN);
+        }
+    }
+
+
+    private boolean isActiveReceiver (Wallet receiverWallet){
+
+        return receiverWallet != null && receiverWallet.getStatus () == WalletStatus.ACTIVE;
+    }
+
+
+    private BulkTransferResult toBulkTransferResult (BulkTransferItem transfer, Transaction transaction){
+
+        return BulkTransferResult.builder ()
+                .toUsername (transfer.getToUsername ())
+                .amount (transfer.getAmount ())
+                .status (transaction.getStatus ())
+                .transactionId (transaction.getId ())
+                .failureReason (transaction.getFailureReason ())
+                .build ();
+    }
+
+
+    // Runs the work as one transaction; on deadlock or lock timeout the whole unit is retried a bounded number of times
+    private <T> T inTransactionWithRetry (UUID senderWalletId, Supplier <T> work){
+
+        int maxAttempts = Math.max (1, walletProperties.getTransfers ().getMaxAttempts ());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute (status -> work.get ());
+            } catch (PessimisticLockingFailureException e) {
+
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+
+                meterRegistry.counter ("wallet.transfer.retries", "exception", e.getClass ().getSimpleName ()).increment ();
+                log.warn ("Transfer from wallet [%s] failed to lock its wallets (%s), retrying (attempt %d of %d)."
+                        .formatted (senderWalletId, e.getClass ().getSimpleName (), attempt + 1, maxAttempts));
+
+                backOff (attempt);
+            }
+        }
+    }
+
+
+    // Every multi wallet operation locks its rows in the same (primary key) order, so A->B and B->A can't deadlock each other
+    private Map <UUID, Wallet> lockInOrder (UUID... walletIds){
+
+        Map <UUID, Wallet> lockedWallets = new LinkedHashMap<> ();
+
+        meterRegistry.timer ("wallet.transfer.lock.wait").record (() -> Arrays.stream (walletIds)
+                .distinct ()
+                .sorted (WALLET_LOCK_ORDER)
+                .forEach (walletId -> lockedWallets.put (walletId, walletRepository.findByIdForUpdate (walletId)
+                        .orElseThrow (() -> new DomainException ("Wallet with id [%s] does not exist."
+                                .formatted (walletId), HttpStatus.BAD_REQUEST)))));
+
+        return lockedWallets;
+    }
+
+
+    private void backOff (int attempt){
+
+        try {
+            Thread.sleep (walletProperties.getTransfers ().getRetryBackoff ().toMillis () * attempt
+                    + ThreadLocalRandom.current ().nextLong (10));
+        } catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new DomainException ("Transfer was interrupted.", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+
+
+
+    public List <Wallet> getAllByOwnerId (UUID ownerId){
+
+        return walletRepository.findAllByOwnerIdOrderByCreatedOnDesc (ownerId);
+    }
+
+
+    // The most recently created wallet -> the one shown on the dashboard
+    public Wallet getLatestByOwnerId (UUID ownerId){
+
+        return walletRepository.findFirstByOwnerIdOrderByCreatedOnDesc (ownerId)
+                .orElseThrow (() -> new DomainException ("User with id [%s] doesn't have a wallet."
+                        .formatted (ownerId), HttpStatus.BAD_REQUEST));
+    }
+
+
+
+
+    //Charge method for transaction
+    public Transaction charge (User user, UUID walletId, Money amount, String description){
+
+        return transactionMetrics.record ("wallet.charge", () -> walletLaneExecutor.execute (walletId, () -> applyCharge (user, walletId, amount, description)));
+    }
+
+
+    private Transaction applyCharge (User user, UUID walletId, Money amount, String description){
+
+        // Single guarded UPDATE -> the balance check and the debit happen atomically in the database, so two charges can't overdraw
+        boolean debited = walletRepository.debit (walletId, amount, LocalDateTime.now ()) == 1;
+        WalletBalance wallet = getWalletBalance (walletId);
+
+        //Когато статуса ни е Inactive или Balance ни е < Amount не променяме баланса на wallet!!!!
+        if (!debited){
+
+            String failureReason = wallet.getBalance ().isLessThan (amount)
+                    ? "Insufficient funds!"
+                    : "Inactive wallet status!";
+
             return transactionService.createNewTransaction (
                     user,
-                    wallet.getId ().toString (),
+                    walletId.toString (),
                     SMART_WALLET_LTD,
                     amount,
                     wallet.getBalance (),
-                    wallet.getCurrency (),
                     TransactionType.WITHDRAWAL,
                     TransactionStatus.FAILED,
                     description,
@@ -197,21 +573,13 @@ public class WalletService {
         }
 
         //Връщаме успешното плащане -Charge
-        //Deduct the amount and create the transaction record
-        BigDecimal newBalance = wallet.getBalance().subtract(amount);
-        wallet.setBalance (newBalance);
-        wallet.setUpdatedOn (LocalDateTime.now ());
-
-        walletRepository.save (wallet);
-
-        //Return transaction
+        //Return transaction with the balance left after the debit
         return transactionService.createNewTransaction (
                 user,
-                wallet.getId ().toString (),
+                walletId.toString (),
                 SMART_WALLET_LTD,
                 amount,
-                newBalance,
-                wallet.getCurrency (),
+                wallet.getBalance (),
                 TransactionType.WITHDRAWAL,
                 TransactionStatus.SUCCEEDED,
                 description,
@@ -224,8 +592,8 @@ public class WalletService {
 
 
 
-    private Wallet getWalletById(UUID walletId) {
-        return walletRepository.findById (walletId)
+    private WalletBalance getWalletBalance(UUID walletId) {
+        return walletRepository.findBalanceById (walletId)
                 .orElseThrow (() -> new DomainException ("Wallet with id [%s] does not exist."
                         .formatted (walletId), HttpStatus.BAD_REQUEST));
     }
@@ -240,8 +608,8 @@ public class WalletService {
         return Wallet.builder ()
                 .owner (user)
                 .status (WalletStatus.ACTIVE)
-                .balance (new BigDecimal ("20.00"))
-                .currency (Currency.getInstance ("EUR"))
+                .balance (Money.ofMinor (2000))
+                .currency (Money.DEFAULT_CURRENCY)
                 .createdOn (LocalDateTime.now ())
                 .updatedOn (LocalDateTime.now ())
                 .build ();
@@ -1,8 +1,10 @@
 package app.web;
 
+import app.subscription.service.SubscriptionService;
 import app.user.model.Country;
 import app.user.model.User;
 import app.user.service.UserService;
+import app.wallet.service.WalletService;
 import app.web.dto.LoginRequest;
 import app.web.dto.RegisterRequest;
 import jakarta.servlet.http.Cookie;
@@ -25,11 +27,15 @@ import java.util.UUID;
 public class IndexController {
 
     private final UserService userService;
+    private final WalletService walletService;
+    private final SubscriptionService subscriptionService;
 
 
     @Autowired
-    public IndexController(UserService userService) {
+    public IndexController(UserService userService, WalletService walletService, SubscriptionService subscriptionService) {
         this.userService = userService;
+        this.walletService = walletService;
+        this.subscriptionService = subscriptionService;
     }
 
 
@@ -97,6 +103,8 @@ public class IndexController {
 
         ModelAndView modelAndView = new ModelAndView ();
         modelAndView.addObject ("user", user);
+        modelAndView.addObject ("wallet", walletService.getLatestByOwnerId (userId));
+        modelAndView.addObject ("subscription", subscriptionService.getLatestByOwnerId (userId));
         modelAndView.setViewName ("home");
 
 
@@ -0,0 +1,39 @@
+package app.web;
+
+import app.report.model.TransactionReport;
+import app.report.service.TransactionReportService;
+import app.security.RequireAdminRole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+@Controller
+@RequestMapping("/reports")
+public class ReportController {
+
+
+    private final TransactionReportService transactionReportService;
+
+
+
+    @Autowired
+    public ReportController(TransactionReportService transactionReportService) {
+        this.transactionReportService = transactionReportService;
+    }
+
+
+    @RequireAdminRole
+    @GetMapping
+    public ModelAndView getReportsPage () {
+
+        TransactionReport transactionReport = transactionReportService.getReport ();
+
+        ModelAndView modelAndView = new ModelAndView ();
+        modelAndView.setViewName ("reports");
+        modelAndView.addObject ("transactionReport", transactionReport);
+
+        return modelAndView;
+    }
+}
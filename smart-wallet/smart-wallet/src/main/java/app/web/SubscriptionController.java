@@ -1,20 +1,28 @@
 package app.web;
 
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.service.IdempotencyService;
+import app.security.RequireAdminRole;
+import app.subscription.model.SubscriptionPriceTable;
 import app.subscription.model.SubscriptionType;
+import app.subscription.service.SubscriptionPriceCatalog;
 import app.subscription.service.SubscriptionService;
-import app.transaction.model.Transaction;
 import app.user.model.User;
 import app.user.service.UserService;
+import app.wallet.service.WalletService;
 import app.web.dto.UpgradeRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.Map;
 import java.util.UUID;
 
 @Controller
@@ -24,11 +32,18 @@ public class SubscriptionController {
 
     private final UserService userService;
     private final SubscriptionService subscriptionService;
+    private final WalletService walletService;
+    private final SubscriptionPriceCatalog subscriptionPriceCatalog;
+    private final IdempotencyService idempotencyService;
 
     @Autowired
-    public SubscriptionController(UserService userService, SubscriptionService subscriptionService) {
+    public SubscriptionController(UserService userService, SubscriptionService subscriptionService, WalletService walletService,
+                                  SubscriptionPriceCatalog subscriptionPriceCatalog, IdempotencyService idempotencyService) {
         this.userService = userService;
         this.subscriptionService = subscriptionService;
+        this.walletService = walletService;
+        this.subscriptionPriceCatalog = subscriptionPriceCatalog;
+        this.idempotencyService = idempotencyService;
     }
 
 
@@ -41,20 +56,38 @@ public class SubscriptionController {
         ModelAndView modelAndView = new ModelAndView ();
         modelAndView.setViewName ("upgrade");
         modelAndView.addObject ("user", user);
-        modelAndView.addObject ("upgradeRequest", UpgradeRequest.builder().build());
+        modelAndView.addObject ("wallets", walletService.getAllByOwnerId (userId));
+        modelAndView.addObject ("subscription", subscriptionService.getLatestByOwnerId (userId));
+        modelAndView.addObject ("upgradeRequest", UpgradeRequest.builder().idempotencyKey (UUID.randomUUID ().toString ()).build());
+        modelAndView.addObject ("prices", subscriptionPriceCatalog.getTable ().asMap ());
 
         return modelAndView;
     }
 
     @PostMapping
-    public String upgrade(@RequestParam ("subscription-type")SubscriptionType subscriptionType, UpgradeRequest upgradeRequest, HttpSession session){
+    public String upgrade(@RequestParam ("subscription-type")SubscriptionType subscriptionType, UpgradeRequest upgradeRequest,
+                          @RequestHeader (value = "Idempotency-Key", required = false) String idempotencyKeyHeader, HttpSession session){
 
         UUID userId = (UUID) session.getAttribute ("user_id");
-        User user = userService.getById (userId);
+        String idempotencyKey = upgradeRequest.getIdempotencyKey () != null ? upgradeRequest.getIdempotencyKey () : idempotencyKeyHeader;
 
-        Transaction upgradeResult = subscriptionService.upgrade (user, subscriptionType, upgradeRequest);
+        UUID transactionId = idempotencyService.execute (userId, idempotencyKey, IdempotentOperation.UPGRADE,
+                () -> subscriptionService.upgrade (userService.getById (userId), subscriptionType, upgradeRequest).getId ());
 
-        return "redirect:/transactions/" + upgradeResult.getId ();
+        return "redirect:/transactions/" + transactionId;
+    }
+
+
+
+    // POST /subscriptions/prices/reload -> re-reads the price file on this instance, returns the table now charged
+    @RequireAdminRole
+    @PostMapping("/prices/reload")
+    @ResponseBody
+    public Map<String, Object> reloadPrices (){
+
+        SubscriptionPriceTable table = subscriptionPriceCatalog.reload ();
+
+        return Map.of ("version", table.getVersion (), "prices", table.asMap ());
     }
 
 
@@ -63,10 +96,9 @@ public class SubscriptionController {
     public ModelAndView getUserSubscriptions (HttpSession session){
 
         UUID userId = (UUID) session.getAttribute ("user_id");
-        User user = userService.getById (userId);
 
         ModelAndView modelAndView = new ModelAndView ();
-        modelAndView.addObject ("user", user);
+        modelAndView.addObject ("subscriptions", subscriptionService.getAllByOwnerId (userId));
         modelAndView.setViewName ("subscription-history");
 
         return modelAndView;
@@ -1,20 +1,31 @@
 package app.web;
 
-import app.transaction.model.Transaction;
+import app.transaction.model.TransactionDetail;
+import app.transaction.model.TransactionExportFormat;
+import app.transaction.model.TransactionPage;
 import app.transaction.service.TransactionService;
 import app.user.model.User;
 import app.user.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 @Controller
@@ -23,13 +34,15 @@ public class TransactionController {
 
 
     private final TransactionService transactionService;
+    private final String pageVersion;
 
 
 
 
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, ObjectProvider<BuildProperties> buildProperties) {
         this.transactionService = transactionService;
+        this.pageVersion = pageVersion (buildProperties.getIfAvailable ());
     }
 
 
@@ -37,23 +50,57 @@ public class TransactionController {
 
 
     @GetMapping
-    public ModelAndView getAllTransactions (HttpSession session){
+    public ModelAndView getAllTransactions (@RequestParam(required = false) String after,
+                                            @RequestParam(required = false) String before,
+                                            @RequestParam(required = false) Integer size,
+                                            HttpSession session){
 
         UUID userId = (UUID) session.getAttribute ("user_id");
-        List <Transaction> transactions = transactionService.getAllByOwnerId (userId);
+        TransactionPage page = transactionService.getPageByOwnerId (userId, after, before, size);
 
         ModelAndView modelAndView = new ModelAndView ();
-        modelAndView.addObject ("transactions", transactions);
+        modelAndView.addObject ("transactions", page.getTransactions ());
+        modelAndView.addObject ("nextCursor", page.getNextCursor ());
+        modelAndView.addObject ("previousCursor", page.getPreviousCursor ());
+        modelAndView.addObject ("size", size);
         modelAndView.setViewName ("transactions");
 
         return modelAndView;
     }
 
 
+    // Written straight to the response while the rows are read -> nothing is buffered in memory
+    @GetMapping("/export")
+    public void exportTransactions (@RequestParam(defaultValue = "CSV") TransactionExportFormat format,
+                                    HttpSession session,
+                                    HttpServletResponse response) throws IOException {
+
+        UUID userId = (UUID) session.getAttribute ("user_id");
+
+        response.setContentType (format.getContentType ());
+        response.setCharacterEncoding (StandardCharsets.UTF_8.name ());
+        response.setHeader (HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment ()
+                .filename ("transactions.%s".formatted (format.getExtension ()))
+                .build ()
+                .toString ());
+
+        transactionService.exportByOwnerId (userId, format, response.getWriter ());
+    }
+
+
+    // A transaction never changes -> its id plus the build is a strong ETag. The build part makes a deploy (new template,
+    // new fingerprinted CSS URLs) re-render pages browsers already hold. The browser revalidates (private, no-cache keeps
+    // the session check in front of it) and a known page is answered with 304 before anything is loaded or rendered.
     @GetMapping("/{id}")
-    public ModelAndView getTransactionById (@PathVariable UUID id){
+    public ModelAndView getTransactionById (@PathVariable UUID id, WebRequest webRequest, HttpServletResponse response){
+
+        response.setHeader (HttpHeaders.CACHE_CONTROL, CacheControl.noCache ().cachePrivate ().getHeaderValue ());
+
+        if (webRequest.checkNotModified ("\"%s-%s\"".formatted (id, pageVersion))) {
+            return null;
+        }
 
-        Transaction transaction = transactionService.getById (id);
+        TransactionDetail transaction = transactionService.getDetailById (id);
 
         ModelAndView modelAndView = new ModelAndView ();
         modelAndView.setViewName ("transaction-result");
@@ -65,5 +112,12 @@ public class TransactionController {
 
 
 
+    // Version and time of the build (META-INF/build-info.properties); run without one (e.g. from the IDE) -> time of startup
+    private static String pageVersion (BuildProperties buildProperties) {
 
-}
\ No newline at end of file
+        if (buildProperties == null || buildProperties.getTime () == null) {
+            return Long.toString (System.currentTimeMillis ());
+        }
+        return "%s-%d".formatted (buildProperties.getVersion (), buildProperties.getTime ().toEpochMilli ());
+    }
+}
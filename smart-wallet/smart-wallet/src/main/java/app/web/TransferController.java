@@ -1,9 +1,12 @@
 package app.web;
 
-import app.transaction.model.Transaction;
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.service.IdempotencyService;
 import app.user.model.User;
 import app.user.service.UserService;
 import app.wallet.service.WalletService;
+import app.web.dto.BulkTransferRequest;
+import app.web.dto.BulkTransferResult;
 import app.web.dto.TransferRequest;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
@@ -12,9 +15,13 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.List;
 import java.util.UUID;
 
 @Controller
@@ -24,12 +31,14 @@ public class TransferController {
 
     private final UserService userService;
     private final WalletService walletService;
+    private final IdempotencyService idempotencyService;
 
 
     @Autowired
-    public TransferController(UserService userService, WalletService walletService) {
+    public TransferController(UserService userService, WalletService walletService, IdempotencyService idempotencyService) {
         this.userService = userService;
         this.walletService = walletService;
+        this.idempotencyService = idempotencyService;
     }
 
 
@@ -37,34 +46,50 @@ public class TransferController {
     public ModelAndView getTransferPage (HttpSession session){
 
         UUID userId = (UUID) session.getAttribute ("user_id");
-        User user = userService.getById (userId);
 
         ModelAndView modelAndView = new ModelAndView ();
-        modelAndView.addObject ("user", user);
+        modelAndView.addObject ("wallets", walletService.getAllByOwnerId (userId));
         modelAndView.setViewName ("transfer");
-        modelAndView.addObject ("transferRequest", TransferRequest.builder ().build ());
+        modelAndView.addObject ("transferRequest", TransferRequest.builder ().idempotencyKey (UUID.randomUUID ().toString ()).build ());
 
         return modelAndView;
     }
 
     @PostMapping
-    public ModelAndView initiateTransfer (@Valid TransferRequest transferRequest, BindingResult bindingResult, HttpSession session){
+    public ModelAndView initiateTransfer (@Valid TransferRequest transferRequest, BindingResult bindingResult,
+                                          @RequestHeader (value = "Idempotency-Key", required = false) String idempotencyKeyHeader, HttpSession session){
 
         UUID userId = (UUID) session.getAttribute ("user_id");
-        User user = userService.getById (userId);
 
         if (bindingResult.hasErrors ()){
 
             ModelAndView modelAndView = new ModelAndView ();
-            modelAndView.addObject ("user", user);
+            modelAndView.addObject ("wallets", walletService.getAllByOwnerId (userId));
             modelAndView.setViewName ("transfer");
             modelAndView.addObject ("transferRequest", transferRequest);
 
             return modelAndView;
         }
 
-        Transaction transaction = walletService.transferFunds (user, transferRequest);
+        // The form carries its key, API clients may send it as a header instead
+        String idempotencyKey = transferRequest.getIdempotencyKey () != null ? transferRequest.getIdempotencyKey () : idempotencyKeyHeader;
+
+        // A repeated key -> the first transfer's record, the user isn't even loaded
+        UUID transactionId = idempotencyService.execute (userId, idempotencyKey, IdempotentOperation.TRANSFER,
+                () -> walletService.transferFunds (userService.getById (userId), transferRequest).getId ());
+
+        return new ModelAndView ("redirect:/transactions/" + transactionId);
+    }
+
+
+    // POST /transfers/bulk -> payroll and cashback jobs, one result per requested transfer
+    @PostMapping("/bulk")
+    @ResponseBody
+    public List <BulkTransferResult> initiateBulkTransfer (@Valid @RequestBody BulkTransferRequest bulkTransferRequest, HttpSession session){
+
+        UUID userId = (UUID) session.getAttribute ("user_id");
+        User user = userService.getById (userId);
 
-        return new ModelAndView ("redirect:/transactions/" + transaction.getId ());
+        return walletService.bulkTransfer (user, bulkTransferRequest);
     }
 }
@@ -1,21 +1,31 @@
 package app.web;
 
 import app.security.RequireAdminRole;
+import app.user.model.Country;
 import app.user.model.User;
+import app.user.model.UserPage;
+import app.user.model.UserRole;
 import app.user.service.UserService;
+import app.web.dto.BulkRegisterRequest;
+import app.web.dto.BulkRegisterResult;
 import app.web.dto.UserEditRequest;
 import app.web.mapper.DtoMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
-import java.util.List;
 import java.util.UUID;
 
 @Controller
@@ -35,19 +45,44 @@ public class UserController {
 
       @RequireAdminRole
       @GetMapping
-      public ModelAndView getAllUsers(){
+      public ModelAndView getAllUsers(@RequestParam(required = false) UserRole role,
+                                      @RequestParam(required = false) Country country,
+                                      @RequestParam(required = false) Boolean active,
+                                      @RequestParam(required = false) String username,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(required = false) Integer size){
 
-        List <User> users = userService.getAllUsers ();
+        UserPage page = userService.getUserPage (role, country, active, username, after, size);
 
         ModelAndView modelAndView = new ModelAndView ();
         modelAndView.setViewName ("users");
-        modelAndView.addObject ("users", users);
+        modelAndView.addObject ("users", page.getUsers ());
+        modelAndView.addObject ("nextCursor", page.getNextCursor ());
+        modelAndView.addObject ("role", role);
+        modelAndView.addObject ("country", country);
+        modelAndView.addObject ("active", active);
+        modelAndView.addObject ("username", username);
+        modelAndView.addObject ("size", size);
 
         return modelAndView;
       }
 
 
 
+    // POST /users/import -> partner onboarding, the body is a JSON file of register requests.
+    // 500 with the result when a chunk failed -> the body lists the users not created, resubmitting the file resumes.
+    @RequireAdminRole
+    @PostMapping("/import")
+    @ResponseBody
+    public ResponseEntity<BulkRegisterResult> importUsers (@Valid @RequestBody BulkRegisterRequest bulkRegisterRequest){
+
+        BulkRegisterResult result = userService.registerAll (bulkRegisterRequest.getUsers ());
+
+        return ResponseEntity.status (result.isComplete () ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR).body (result);
+    }
+
+
+
     // Edit profile user
     @GetMapping("/{id}/profile")
     public ModelAndView getProfileMenu (@PathVariable UUID id){
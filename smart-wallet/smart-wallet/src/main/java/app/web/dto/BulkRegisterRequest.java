@@ -0,0 +1,22 @@
+package app.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkRegisterRequest {
+
+    @NotEmpty
+    @Size(max = 50000, message = "Bulk registration can't contain more than 50000 users!")
+    private List<@Valid RegisterRequest> users;
+}
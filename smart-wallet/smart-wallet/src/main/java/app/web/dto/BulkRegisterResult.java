@@ -0,0 +1,32 @@
+package app.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkRegisterResult {
+
+    private int requested;
+
+    private int created;
+
+    // Already registered or repeated in the same file
+    private List<String> skippedUsernames;
+
+    // Not created because their chunk failed (or came after it), empty when the whole file was imported.
+    // Resubmitting the same file creates exactly these users.
+    private List<String> failedUsernames;
+
+    // Position in the request of the first user not created, null when nothing failed
+    private Integer firstFailedIndex;
+
+    private String error;
+
+
+    public boolean isComplete () {
+        return failedUsernames.isEmpty ();
+    }
+}
@@ -0,0 +1,27 @@
+package app.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkTransferRequest {
+
+    @NotNull
+    private UUID fromWalletId;
+
+    @NotEmpty
+    @Size(max = 10000, message = "Bulk transfer can't contain more than 10000 transfers!")
+    private List<@Valid BulkTransferItem> transfers;
+}
@@ -0,0 +1,23 @@
+package app.web.dto;
+
+import app.transaction.model.TransactionStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+public class BulkTransferResult {
+
+    private String toUsername;
+
+    private BigDecimal amount;
+
+    private TransactionStatus status;
+
+    private UUID transactionId;
+
+    private String failureReason;
+}
@@ -2,6 +2,7 @@ package app.web.dto;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
 
@@ -21,4 +22,8 @@ public class TransferRequest {
     @NotNull
     @Positive
     private BigDecimal amount;
+
+    // Generated with the form -> a resubmitted form or a retried request doesn't run twice
+    @Size(max = 64)
+    private String idempotencyKey;
 }
@@ -1,6 +1,7 @@
 package app.web.dto;
 
 import app.subscription.model.SubscriptionPeriod;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
 
@@ -13,4 +14,8 @@ public class UpgradeRequest {
     private SubscriptionPeriod subscriptionPeriod;
 
     private UUID walletId;
+
+    // Generated with the form -> a resubmitted form or a retried request doesn't run twice
+    @Size(max = 64)
+    private String idempotencyKey;
 }
@@ -0,0 +1,317 @@
+package app;
+
+import app.exception.DomainException;
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.property.IdempotencyProperties;
+import app.idempotency.repository.IdempotencyRepository;
+import app.idempotency.service.IdempotencyService;
+import app.money.Money;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.service.TransactionService;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.wallet.model.Wallet;
+import app.wallet.model.WalletStatus;
+import app.wallet.property.WalletProperties;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletService;
+import app.web.dto.RegisterRequest;
+import app.web.dto.TransferRequest;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Transfers against the in-memory database: every new user starts with one ACTIVE wallet holding 20.00
+@SpringBootTest
+@ActiveProfiles("test")
+class WalletTransferTests {
+
+	private static final AtomicInteger USERS = new AtomicInteger ();
+
+	@Autowired
+	private WalletService walletService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private WalletProperties walletProperties;
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private IdempotencyRepository idempotencyRepository;
+
+	@Autowired
+	private IdempotencyProperties idempotencyProperties;
+
+	@SpyBean
+	private WalletRepository walletRepository;
+
+	@SpyBean
+	private TransactionService transactionService;
+
+
+	@Test
+	void transfer_debitsTheSenderAndCreditsTheReceiver () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+
+		Transaction withdrawal = walletService.transferFunds (sender.user, transfer (sender, receiver, "5.00"));
+
+		assertEquals (TransactionStatus.SUCCEEDED, withdrawal.getStatus ());
+		assertEquals (Money.ofMinor (1500), withdrawal.getBalanceLeft ());
+		assertEquals (Money.ofMinor (1500), balanceOf (sender));
+		assertEquals (Money.ofMinor (2500), balanceOf (receiver));
+	}
+
+
+	// The deposit record is written after both balances changed -> its failure has to take the debit back too
+	@Test
+	void transfer_failingAfterTheDebit_changesNoBalance () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+		doAnswer (invocation -> {
+			if (invocation.getArgument (5) == TransactionType.DEPOSIT) {
+				throw new IllegalStateException ("Deposit record couldn't be written.");
+			}
+			return invocation.callRealMethod ();
+		}).when (transactionService).createNewTransaction (any (), any (), any (), any (), any (), any (), any (), any (), any ());
+
+		assertThrows (IllegalStateException.class, () -> walletService.transferFunds (sender.user, transfer (sender, receiver, "5.00")));
+
+		assertEquals (Money.ofMinor (2000), balanceOf (sender));
+		assertEquals (Money.ofMinor (2000), balanceOf (receiver));
+		assertTrue (transactionService.getPageByOwnerId (sender.user.getId (), null, null, 10).getTransactions ().isEmpty ());
+	}
+
+
+	@Test
+	void transfer_withInsufficientFunds_isRecordedAsFailed () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+
+		Transaction withdrawal = walletService.transferFunds (sender.user, transfer (sender, receiver, "20.01"));
+
+		assertFailed (withdrawal, "Insufficient funds!");
+		assertEquals (Money.ofMinor (2000), balanceOf (sender));
+		assertEquals (Money.ofMinor (2000), balanceOf (receiver));
+	}
+
+
+	@Test
+	void transfer_fromAnInactiveWallet_isRecordedAsFailed () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+		deactivate (sender);
+
+		Transaction withdrawal = walletService.transferFunds (sender.user, transfer (sender, receiver, "5.00"));
+
+		assertFailed (withdrawal, "Inactive wallet status!");
+		assertEquals (Money.ofMinor (2000), balanceOf (sender));
+		assertEquals (Money.ofMinor (2000), balanceOf (receiver));
+	}
+
+
+	@Test
+	void transfer_toAnInactiveWallet_isRecordedAsFailed () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+		// A first transfer puts the receiver in the receiver cache, deactivating it must not leave it usable
+		walletService.transferFunds (sender.user, transfer (sender, receiver, "1.00"));
+		deactivate (receiver);
+
+		Transaction withdrawal = walletService.transferFunds (sender.user, transfer (sender, receiver, "5.00"));
+
+		assertFailed (withdrawal, "Invalid criteria transfer!");
+		assertEquals (Money.ofMinor (1900), balanceOf (sender));
+		assertEquals (Money.ofMinor (2100), balanceOf (receiver));
+	}
+
+
+	@Test
+	void transfer_fromSomebodyElsesWallet_isForbidden () {
+
+		Account owner = newAccount ();
+		Account receiver = newAccount ();
+		Account intruder = newAccount ();
+
+		DomainException exception = assertThrows (DomainException.class,
+				() -> walletService.transferFunds (intruder.user, transfer (owner, receiver, "5.00")));
+
+		assertEquals (HttpStatus.FORBIDDEN, exception.getStatus ());
+		assertEquals (Money.ofMinor (2000), balanceOf (owner));
+	}
+
+
+	// The key's result is recorded in the transfer's own transaction -> a repeat finds it and moves nothing
+	@Test
+	void repeatedIdempotencyKey_movesMoneyOnce () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+		TransferRequest request = transfer (sender, receiver, "5.00");
+
+		UUID first = idempotencyService.execute (sender.user.getId (), "transfer-once", IdempotentOperation.TRANSFER,
+				() -> walletService.transferFunds (sender.user, request).getId ());
+		UUID repeated = new IdempotencyService (idempotencyRepository, idempotencyProperties).execute (sender.user.getId (), "transfer-once",
+				IdempotentOperation.TRANSFER, () -> walletService.transferFunds (sender.user, request).getId ());
+
+		assertEquals (first, repeated);
+		assertEquals (first, idempotencyRepository.findByScopeIdAndIdempotencyKey (sender.user.getId (), "transfer-once").orElseThrow ().getTransactionId ());
+		assertEquals (Money.ofMinor (1500), balanceOf (sender));
+		assertEquals (Money.ofMinor (2500), balanceOf (receiver));
+	}
+
+
+	// Both directions lock the two rows in the same order -> they queue behind each other instead of deadlocking
+	@Test
+	void concurrentTransfersInBothDirections_allComplete () throws Exception {
+
+		Account first = newAccount ();
+		Account second = newAccount ();
+		int transfersPerDirection = 20;
+
+		ExecutorService executor = Executors.newFixedThreadPool (8);
+		List<Future<Transaction>> results = new ArrayList<> ();
+		try {
+			for (int i = 0; i < transfersPerDirection; i++) {
+				results.add (executor.submit (() -> walletService.transferFunds (first.user, transfer (first, second, "1.00"))));
+				results.add (executor.submit (() -> walletService.transferFunds (second.user, transfer (second, first, "1.00"))));
+			}
+
+			for (Future<Transaction> result : results) {
+				assertEquals (TransactionStatus.SUCCEEDED, result.get (30, TimeUnit.SECONDS).getStatus ());
+			}
+		} finally {
+			executor.shutdownNow ();
+		}
+
+		assertEquals (Money.ofMinor (2000), balanceOf (first));
+		assertEquals (Money.ofMinor (2000), balanceOf (second));
+	}
+
+
+	@Test
+	void lockFailure_isRetried_andTheTransferCompletes () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+		doThrow (new PessimisticLockingFailureException ("Lock wait timeout exceeded."))
+				.doAnswer (repositoryAnswer ())
+				.when (walletRepository).findByIdForUpdate (any ());
+
+		Transaction withdrawal = walletService.transferFunds (sender.user, transfer (sender, receiver, "5.00"));
+
+		assertEquals (TransactionStatus.SUCCEEDED, withdrawal.getStatus ());
+		assertEquals (Money.ofMinor (1500), balanceOf (sender));
+		assertEquals (Money.ofMinor (2500), balanceOf (receiver));
+	}
+
+
+	@Test
+	void lockFailure_isRetriedUpToMaxAttempts_thenRethrown () {
+
+		Account sender = newAccount ();
+		Account receiver = newAccount ();
+		doThrow (new PessimisticLockingFailureException ("Deadlock found when trying to get lock."))
+				.when (walletRepository).findByIdForUpdate (any ());
+
+		assertThrows (PessimisticLockingFailureException.class,
+				() -> walletService.transferFunds (sender.user, transfer (sender, receiver, "5.00")));
+
+		// The first lock of every attempt fails, so there is exactly one lock call per attempt
+		verify (walletRepository, times (walletProperties.getTransfers ().getMaxAttempts ())).findByIdForUpdate (any ());
+		assertEquals (Money.ofMinor (2000), balanceOf (sender));
+		assertEquals (Money.ofMinor (2000), balanceOf (receiver));
+	}
+
+
+
+	private Account newAccount () {
+
+		User user = userService.register (RegisterRequest.builder ()
+				.username ("transfer-%d".formatted (USERS.incrementAndGet ()))
+				.password ("123456")
+				.country (Country.BULGARIA)
+				.build ());
+
+		return new Account (user, walletService.getLatestByOwnerId (user.getId ()).getId ());
+	}
+
+
+	private static TransferRequest transfer (Account from, Account to, String amount) {
+
+		return TransferRequest.builder ()
+				.fromWalledId (from.walletId)
+				.toUsername (to.user.getUsername ())
+				.amount (new BigDecimal (amount))
+				.build ();
+	}
+
+
+	private void deactivate (Account account) {
+
+		Wallet wallet = walletRepository.findById (account.walletId).orElseThrow ();
+		wallet.setStatus (WalletStatus.INACTIVE);
+		walletRepository.save (wallet);
+	}
+
+
+	private Money balanceOf (Account account) {
+
+		return walletRepository.findBalanceById (account.walletId).orElseThrow ().getBalance ();
+	}
+
+
+	// The spied repository is a proxy over an interface -> its default answer is the one reaching the real repository
+	private Answer<?> repositoryAnswer () {
+
+		return Mockito.mockingDetails (walletRepository).getMockCreationSettings ().getDefaultAnswer ();
+	}
+
+
+	private static void assertFailed (Transaction withdrawal, String failureReason) {
+
+		assertEquals (TransactionStatus.FAILED, withdrawal.getStatus ());
+		assertEquals (failureReason, withdrawal.getFailureReason ());
+	}
+
+
+	private record Account(User user, UUID walletId) {
+	}
+}
@@ -0,0 +1,186 @@
+package app.idempotency.service;
+
+import app.exception.DomainException;
+import app.idempotency.model.IdempotencyRecord;
+import app.idempotency.model.IdempotentOperation;
+import app.idempotency.property.IdempotencyProperties;
+import app.idempotency.repository.IdempotencyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRepository idempotencyRepository;
+
+    @Autowired
+    private IdempotencyProperties idempotencyProperties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+
+    @Test
+    void repeatedKey_returnsTheFirstTransactionId_andRunsTheActionOnce () {
+
+        UUID scopeId = UUID.randomUUID ();
+        CountingAction action = new CountingAction ();
+
+        UUID first = idempotencyService.execute (scopeId, "key-1", IdempotentOperation.TRANSFER, action);
+        UUID repeated = idempotencyService.execute (scopeId, "key-1", IdempotentOperation.TRANSFER, action);
+
+        // Another instance has an empty cache -> answered from the table
+        IdempotencyService otherInstance = new IdempotencyService (idempotencyRepository, idempotencyProperties);
+        UUID repeatedElsewhere = otherInstance.execute (scopeId, "key-1", IdempotentOperation.TRANSFER, action);
+
+        assertEquals (first, repeated);
+        assertEquals (first, repeatedElsewhere);
+        assertEquals (1, action.runs.get ());
+    }
+
+
+    @Test
+    void keyReusedForAnotherOperation_isRejectedWith422 () {
+
+        UUID scopeId = UUID.randomUUID ();
+        CountingAction action = new CountingAction ();
+
+        idempotencyService.execute (scopeId, "key-2", IdempotentOperation.TRANSFER, action);
+
+        DomainException exception = assertThrows (DomainException.class,
+                () -> idempotencyService.execute (scopeId, "key-2", IdempotentOperation.UPGRADE, action));
+
+        assertEquals (HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus ());
+        assertEquals (1, action.runs.get ());
+    }
+
+
+    @Test
+    void failedAction_leavesTheKeyUsable () {
+
+        UUID scopeId = UUID.randomUUID ();
+        CountingAction action = new CountingAction ();
+
+        assertThrows (DomainException.class, () -> idempotencyService.execute (scopeId, "key-3", IdempotentOperation.TRANSFER, () -> {
+            throw new DomainException ("Wallet is locked.", HttpStatus.CONFLICT);
+        }));
+
+        UUID transactionId = idempotencyService.execute (scopeId, "key-3", IdempotentOperation.TRANSFER, action);
+
+        assertEquals (1, action.runs.get ());
+        assertEquals (transactionId, idempotencyRepository.findByScopeIdAndIdempotencyKey (scopeId, "key-3").orElseThrow ().getTransactionId ());
+    }
+
+
+    @Test
+    void claimOlderThanTheLease_isTakenOver () {
+
+        UUID scopeId = UUID.randomUUID ();
+        CountingAction action = new CountingAction ();
+        idempotencyRepository.saveAndFlush (IdempotencyRecord.builder ()
+                .scopeId (scopeId)
+                .idempotencyKey ("key-4")
+                .operation (IdempotentOperation.TRANSFER)
+                .createdOn (LocalDateTime.now ().minus (idempotencyProperties.getPendingLease ()).minusSeconds (1))
+                .build ());
+
+        UUID transactionId = idempotencyService.execute (scopeId, "key-4", IdempotentOperation.TRANSFER, action);
+
+        assertEquals (1, action.runs.get ());
+        assertEquals (transactionId, idempotencyRepository.findByScopeIdAndIdempotencyKey (scopeId, "key-4").orElseThrow ().getTransactionId ());
+    }
+
+
+    @Test
+    void pendingClaimWithinTheLease_isRejectedWith409 () {
+
+        UUID scopeId = UUID.randomUUID ();
+        idempotencyRepository.saveAndFlush (IdempotencyRecord.builder ()
+                .scopeId (scopeId)
+                .idempotencyKey ("key-5")
+                .operation (IdempotentOperation.TRANSFER)
+                .createdOn (LocalDateTime.now ())
+                .build ());
+
+        DomainException exception = assertThrows (DomainException.class,
+                () -> idempotencyService.execute (scopeId, "key-5", IdempotentOperation.TRANSFER, new CountingAction ()));
+
+        assertEquals (HttpStatus.CONFLICT, exception.getStatus ());
+    }
+
+
+    @Test
+    void claimCompletedInTheOperationsTransaction_isRolledBackWithIt () {
+
+        UUID scopeId = UUID.randomUUID ();
+
+        assertThrows (IllegalStateException.class, () -> idempotencyService.execute (scopeId, "key-6", IdempotentOperation.TRANSFER,
+                () -> transactionTemplate.execute (status -> {
+                    idempotencyService.completeClaim (UUID.randomUUID ());
+                    throw new IllegalStateException ("Transfer failed after its record was written.");
+                })));
+
+        CountingAction action = new CountingAction ();
+        UUID transactionId = idempotencyService.execute (scopeId, "key-6", IdempotentOperation.TRANSFER, action);
+
+        assertEquals (1, action.runs.get ());
+        assertEquals (transactionId, idempotencyRepository.findByScopeIdAndIdempotencyKey (scopeId, "key-6").orElseThrow ().getTransactionId ());
+    }
+
+
+    // A retry took the claim over while the first request was still running -> the first one must not commit as well
+    @Test
+    void claimTakenOverMidway_rollsTheFirstRequestBack () {
+
+        UUID scopeId = UUID.randomUUID ();
+        TransactionTemplate otherInstance = new TransactionTemplate (transactionManager);
+        otherInstance.setPropagationBehavior (TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        DomainException exception = assertThrows (DomainException.class, () -> idempotencyService.execute (scopeId, "key-7", IdempotentOperation.TRANSFER,
+                () -> transactionTemplate.execute (status -> {
+                    UUID claimId = idempotencyRepository.findByScopeIdAndIdempotencyKey (scopeId, "key-7").orElseThrow ().getId ();
+                    otherInstance.executeWithoutResult (other -> idempotencyRepository.deletePending (claimId));
+
+                    UUID transactionId = UUID.randomUUID ();
+                    idempotencyService.completeClaim (transactionId);
+                    return transactionId;
+                })));
+
+        assertEquals (HttpStatus.CONFLICT, exception.getStatus ());
+    }
+
+
+
+    private static class CountingAction implements Supplier<UUID> {
+
+        private final AtomicInteger runs = new AtomicInteger ();
+
+        @Override
+        public UUID get () {
+            runs.incrementAndGet ();
+            return UUID.randomUUID ();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package app.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MoneyConverterTest {
+
+    private final MoneyConverter converter = new MoneyConverter ();
+
+
+    @Test
+    void roundTrip_throughADecimalColumn_keepsTheAmount () {
+
+        for (long minorUnits : new long[] {0, 1, -1, 2000, 123_456_789, Long.MAX_VALUE, Long.MIN_VALUE}) {
+
+            Money money = Money.ofMinor (minorUnits);
+
+            // The DECIMAL(38,2) columns hand the value back with the column scale
+            BigDecimal column = converter.convertToDatabaseColumn (money).setScale (2);
+
+            assertEquals (money, converter.convertToEntityAttribute (column));
+        }
+    }
+
+
+    @Test
+    void convertToEntityAttribute_acceptsAnyScaleWithoutExtraDecimals () {
+
+        assertEquals (Money.ofMinor (2000), converter.convertToEntityAttribute (new BigDecimal ("20")));
+        assertEquals (Money.ofMinor (2050), converter.convertToEntityAttribute (new BigDecimal ("20.5000")));
+    }
+
+
+    @Test
+    void nulls_stayNull () {
+
+        assertNull (converter.convertToDatabaseColumn (null));
+        assertNull (converter.convertToEntityAttribute (null));
+    }
+}
@@ -0,0 +1,89 @@
+package app.money;
+
+import app.exception.DomainException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    void of_keepsTheAmountInMinorUnits () {
+
+        assertEquals (2000, Money.of (new BigDecimal ("20")).getMinorUnits ());
+        assertEquals (2050, Money.of (new BigDecimal ("20.5")).getMinorUnits ());
+        assertEquals (-1, Money.of (new BigDecimal ("-0.01")).getMinorUnits ());
+        assertSame (Money.ZERO, Money.of (new BigDecimal ("0.00")));
+    }
+
+
+    @Test
+    void of_rejectsMoreDecimalsThanTheCurrencyHas () {
+
+        assertThrows (DomainException.class, () -> Money.of (new BigDecimal ("1.005")));
+        assertThrows (DomainException.class, () -> Money.of (new BigDecimal ("1.5"), Currency.getInstance ("JPY")));
+    }
+
+
+    @Test
+    void of_trailingZerosBeyondTheCurrencyDecimals_areNotRounding () {
+
+        assertEquals (Money.of (new BigDecimal ("1.5")), Money.of (new BigDecimal ("1.500")));
+    }
+
+
+    @Test
+    void of_rejectsAmountsOutOfRange () {
+
+        BigDecimal tooLarge = BigDecimal.valueOf (Long.MAX_VALUE).movePointLeft (2).add (new BigDecimal ("0.01"));
+
+        assertThrows (DomainException.class, () -> Money.of (tooLarge));
+        assertThrows (DomainException.class, () -> Money.of (tooLarge.negate ().subtract (new BigDecimal ("0.01"))));
+    }
+
+
+    @Test
+    void plus_and_minus_rejectOverflow () {
+
+        Money max = Money.ofMinor (Long.MAX_VALUE);
+        Money min = Money.ofMinor (Long.MIN_VALUE);
+
+        assertThrows (DomainException.class, () -> max.plus (Money.ofMinor (1)));
+        assertThrows (DomainException.class, () -> min.minus (Money.ofMinor (1)));
+        assertEquals (Money.ofMinor (Long.MAX_VALUE - 1), max.minus (Money.ofMinor (1)));
+    }
+
+
+    @Test
+    void arithmetic_withAnotherCurrency_isRejected () {
+
+        Money euros = Money.ofMinor (100);
+        Money dollars = Money.ofMinor (100, Currency.getInstance ("USD"));
+
+        assertThrows (DomainException.class, () -> euros.plus (dollars));
+        assertThrows (DomainException.class, () -> euros.isLessThan (dollars));
+    }
+
+
+    @Test
+    void toString_isThePlainAmountWithTheCurrencyDecimals () {
+
+        assertEquals ("20.00", Money.of (new BigDecimal ("20")).toString ());
+        assertEquals ("0.05", Money.ofMinor (5).toString ());
+        assertEquals ("-1.50", Money.ofMinor (-150).toString ());
+        assertEquals ("1500", Money.ofMinor (1500, Currency.getInstance ("JPY")).toString ());
+    }
+
+
+    @Test
+    void toBigDecimal_hasTheCurrencyScale () {
+
+        assertEquals (new BigDecimal ("20.00"), Money.ofMinor (2000).toBigDecimal ());
+        assertEquals (0, Money.ofMinor (5).toBigDecimal ().compareTo (new BigDecimal ("0.05")));
+    }
+}
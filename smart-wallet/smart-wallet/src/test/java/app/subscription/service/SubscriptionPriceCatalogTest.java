@@ -0,0 +1,90 @@
+package app.subscription.service;
+
+import app.exception.DomainException;
+import app.money.Money;
+import app.subscription.model.SubscriptionPeriod;
+import app.subscription.model.SubscriptionType;
+import app.subscription.property.SubscriptionProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubscriptionPriceCatalogTest {
+
+    @TempDir
+    Path directory;
+
+
+    @Test
+    void reload_swapsInTheNextVersionOfThePriceFile () throws IOException {
+
+        Path file = writePrices ("19.99");
+        SubscriptionPriceCatalog catalog = new SubscriptionPriceCatalog (properties (file));
+        assertEquals (1, catalog.getTable ().getVersion ());
+
+        writePrices ("24.99");
+
+        assertEquals (2, catalog.reload ().getVersion ());
+        assertEquals (Money.of (new BigDecimal ("24.99")), catalog.getPrice (SubscriptionType.PREMIUM, SubscriptionPeriod.MONTHLY));
+    }
+
+
+    @Test
+    void reload_incompleteFile_keepsTheCurrentTable () throws IOException {
+
+        Path file = writePrices ("19.99");
+        SubscriptionPriceCatalog catalog = new SubscriptionPriceCatalog (properties (file));
+
+        Files.writeString (file, "prices.premium.monthly=24.99\n");
+
+        assertThrows (DomainException.class, catalog::reload);
+        assertEquals (1, catalog.getTable ().getVersion ());
+        assertEquals (Money.of (new BigDecimal ("19.99")), catalog.getPrice (SubscriptionType.PREMIUM, SubscriptionPeriod.MONTHLY));
+    }
+
+
+    @Test
+    void reload_inlinePrices_isRejected () {
+
+        SubscriptionProperties properties = new SubscriptionProperties ();
+        for (SubscriptionType type : SubscriptionType.values ()) {
+            for (SubscriptionPeriod period : SubscriptionPeriod.values ()) {
+                properties.getPrices ().computeIfAbsent (type, t -> new EnumMap<> (SubscriptionPeriod.class)).put (period, BigDecimal.ONE);
+            }
+        }
+        SubscriptionPriceCatalog catalog = new SubscriptionPriceCatalog (properties);
+
+        assertThrows (DomainException.class, catalog::reload);
+    }
+
+
+
+    private Path writePrices (String premiumMonthly) throws IOException {
+
+        return Files.writeString (directory.resolve ("subscription-prices.properties"), """
+                prices.default.monthly=0.00
+                prices.default.yearly=0.00
+                prices.premium.monthly=%s
+                prices.premium.yearly=199.99
+                prices.ultimate.monthly=49.99
+                prices.ultimate.yearly=499.99
+                """.formatted (premiumMonthly));
+    }
+
+
+    private static SubscriptionProperties properties (Path file) {
+
+        SubscriptionProperties properties = new SubscriptionProperties ();
+        properties.setPricesLocation (new FileSystemResource (file));
+        return properties;
+    }
+}
@@ -0,0 +1,88 @@
+package app.subscription.service;
+
+import app.money.Money;
+import app.subscription.model.RenewalOutcome;
+import app.subscription.model.Subscription;
+import app.subscription.model.SubscriptionStatus;
+import app.subscription.model.SubscriptionType;
+import app.subscription.repository.SubscriptionRepository;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletService;
+import app.web.dto.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SubscriptionServiceTest {
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+
+    // Overlapping runs (or instances) renewing the same due subscription -> one charge, the others find it renewed
+    @Test
+    void concurrentRenewals_chargeOnce () throws Exception {
+
+        User user = userService.register (RegisterRequest.builder ()
+                .username ("renewal-race")
+                .password ("123456")
+                .country (Country.BULGARIA)
+                .build ());
+
+        Subscription subscription = subscriptionService.getLatestByOwnerId (user.getId ());
+        subscription.setType (SubscriptionType.PREMIUM);
+        subscription.setCompletedOn (LocalDateTime.now ().minusMinutes (1));
+        subscriptionRepository.save (subscription);
+
+        ExecutorService executor = Executors.newFixedThreadPool (4);
+        List<Future<RenewalOutcome>> outcomes = new ArrayList<> ();
+        try {
+            for (int i = 0; i < 4; i++) {
+                outcomes.add (executor.submit (() -> subscriptionService.renew (subscription.getId ())));
+            }
+
+            int renewed = 0;
+            for (Future<RenewalOutcome> outcome : outcomes) {
+                renewed += outcome.get (30, TimeUnit.SECONDS) == RenewalOutcome.RENEWED ? 1 : 0;
+            }
+            assertEquals (1, renewed);
+        } finally {
+            executor.shutdownNow ();
+        }
+
+        UUID walletId = walletService.getLatestByOwnerId (user.getId ()).getId ();
+        assertEquals (Money.ofMinor (1), walletRepository.findBalanceById (walletId).orElseThrow ().getBalance ());
+        assertEquals (1, subscriptionService.getAllByOwnerId (user.getId ()).stream ()
+                .filter (current -> current.getStatus () == SubscriptionStatus.ACTIVE)
+                .count ());
+    }
+}
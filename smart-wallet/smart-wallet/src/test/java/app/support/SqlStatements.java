@@ -0,0 +1,32 @@
+package app.support;
+
+import app.config.SqlStatementCounter;
+import org.junit.jupiter.api.function.Executable;
+
+// Statement counts for controller tests, e.g.
+// SqlStatements.assertAtMost (6, () -> mockMvc.perform (get ("/home").session (session)).andExpect (status ().isOk ()));
+// MockMvc runs the request on the test thread, so everything from the session check to the view is counted.
+public final class SqlStatements {
+
+    private SqlStatements () {
+    }
+
+
+    public static long count (Executable action) throws Throwable {
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start ()) {
+            action.execute ();
+            return scope.getStatements ();
+        }
+    }
+
+
+    public static void assertAtMost (long maxStatements, Executable action) throws Throwable {
+
+        long statements = count (action);
+
+        if (statements > maxStatements) {
+            throw new AssertionError ("Expected at most [%d] SQL statements but [%d] were run.".formatted (maxStatements, statements));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package app.transaction.model;
+
+import app.exception.DomainException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionCursorTest {
+
+    @Test
+    void decode_returnsThePositionTheTokenWasMadeFrom () {
+
+        Transaction transaction = Transaction.builder ()
+                .id (UUID.randomUUID ())
+                .createdOn (LocalDateTime.of (2024, 2, 29, 23, 59, 59, 123_456_000))
+                .build ();
+
+        TransactionCursor cursor = TransactionCursor.decode (TransactionCursor.of (transaction));
+
+        assertEquals (transaction.getCreatedOn (), cursor.createdOn ());
+        assertEquals (transaction.getId (), cursor.id ());
+    }
+
+
+    @Test
+    void token_isSafeInAQueryString () {
+
+        Transaction transaction = Transaction.builder ()
+                .id (UUID.randomUUID ())
+                .createdOn (LocalDateTime.now ())
+                .build ();
+
+        assertTrue (TransactionCursor.of (transaction).matches ("[A-Za-z0-9_-]+"));
+    }
+
+
+    @Test
+    void decode_ofATamperedToken_isABadRequest () {
+
+        for (String token : new String[] {"not a cursor", "bm90LWEtY3Vyc29y", ""}) {
+
+            DomainException exception = assertThrows (DomainException.class, () -> TransactionCursor.decode (token));
+
+            assertEquals (HttpStatus.BAD_REQUEST, exception.getStatus ());
+        }
+    }
+}
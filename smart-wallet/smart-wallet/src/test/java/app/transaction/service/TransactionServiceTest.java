@@ -0,0 +1,131 @@
+package app.transaction.service;
+
+import app.money.Money;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionPage;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.wallet.service.WalletService;
+import app.web.dto.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WalletService walletService;
+
+
+    @Test
+    void pages_coverTheHistoryOnce_andTheLastPageHasNoNextCursor () {
+
+        UUID ownerId = userWithTransactions ("pages-partial", 5);
+
+        List<TransactionPage> pages = allPages (ownerId, 2);
+
+        assertEquals (3, pages.size ());
+        assertEquals (newestFirst (ownerId), idsOf (pages));
+        assertNull (pages.get (2).getNextCursor ());
+    }
+
+
+    // Exactly full last page -> the extra row probe finds nothing, so no link to an empty page
+    @Test
+    void fullLastPage_hasNoNextCursor () {
+
+        UUID ownerId = userWithTransactions ("pages-full", 4);
+
+        List<TransactionPage> pages = allPages (ownerId, 2);
+
+        assertEquals (2, pages.size ());
+        assertEquals (2, pages.get (1).getTransactions ().size ());
+        assertNull (pages.get (1).getNextCursor ());
+    }
+
+
+    @Test
+    void previousCursor_returnsToThePageBefore () {
+
+        UUID ownerId = userWithTransactions ("pages-back", 5);
+        List<TransactionPage> pages = allPages (ownerId, 2);
+
+        assertNull (pages.get (0).getPreviousCursor ());
+        assertNotNull (pages.get (2).getPreviousCursor ());
+
+        TransactionPage back = transactionService.getPageByOwnerId (ownerId, null, pages.get (2).getPreviousCursor (), 2);
+
+        assertEquals (idsOf (List.of (pages.get (1))), idsOf (List.of (back)));
+    }
+
+
+
+    private UUID userWithTransactions (String username, int transactions) {
+
+        User user = userService.register (RegisterRequest.builder ()
+                .username (username)
+                .password ("123456")
+                .country (Country.BULGARIA)
+                .build ());
+
+        UUID walletId = walletService.getLatestByOwnerId (user.getId ()).getId ();
+        for (int i = 0; i < transactions; i++) {
+            walletService.topUp (walletId, Money.ofMinor (100));
+        }
+
+        assertEquals (transactions, newestFirst (user.getId ()).size ());
+        return user.getId ();
+    }
+
+
+    private List<TransactionPage> allPages (UUID ownerId, int size) {
+
+        List<TransactionPage> pages = new ArrayList<> ();
+        TransactionPage page = transactionService.getPageByOwnerId (ownerId, null, null, size);
+        pages.add (page);
+
+        while (page.getNextCursor () != null) {
+            page = transactionService.getPageByOwnerId (ownerId, page.getNextCursor (), null, size);
+            pages.add (page);
+        }
+
+        return pages;
+    }
+
+
+    private List<UUID> newestFirst (UUID ownerId) {
+
+        return idsOf (List.of (transactionService.getPageByOwnerId (ownerId, null, null, 100)));
+    }
+
+
+    private static List<UUID> idsOf (List<TransactionPage> pages) {
+
+        List<UUID> ids = pages.stream ()
+                .flatMap (page -> page.getTransactions ().stream ())
+                .map (Transaction::getId)
+                .toList ();
+
+        assertEquals (new HashSet<> (ids).size (), ids.size ());
+        return ids;
+    }
+}
@@ -0,0 +1,111 @@
+package app.user.service;
+
+import app.exception.DomainException;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.repository.UserRepository;
+import app.web.dto.BulkRegisterResult;
+import app.web.dto.RegisterRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    @Test
+    void registerAll_failingChunk_reportsTheUsersNotCreated_andAResubmitResumes () {
+
+        // Longer than the username column -> the chunk's insert fails at commit
+        String tooLong = "import-" + "x".repeat (300);
+
+        BulkRegisterResult failed = userService.registerAll (List.of (
+                request ("import-first"), request ("import-second"), request (tooLong)));
+
+        assertFalse (failed.isComplete ());
+        assertEquals (0, failed.getCreated ());
+        assertEquals (List.of ("import-first", "import-second", tooLong), failed.getFailedUsernames ());
+        assertEquals (0, failed.getFirstFailedIndex ());
+        assertNotNull (failed.getError ());
+        assertTrue (userRepository.findByUsername ("import-first").isEmpty ());
+
+        BulkRegisterResult resumed = userService.registerAll (List.of (
+                request ("import-first"), request ("import-second"), request ("import-third")));
+
+        assertTrue (resumed.isComplete ());
+        assertEquals (3, resumed.getCreated ());
+
+        BulkRegisterResult repeated = userService.registerAll (List.of (
+                request ("import-first"), request ("import-second"), request ("import-third")));
+
+        assertTrue (repeated.isComplete ());
+        assertEquals (0, repeated.getCreated ());
+        assertEquals (Set.of ("import-first", "import-second", "import-third"), Set.copyOf (repeated.getSkippedUsernames ()));
+    }
+
+
+    @Test
+    void switchRole_userChangedAfterItWasRead_isAConflict () {
+
+        User user = userService.register (request ("switch-role-race"));
+
+        // Another request commits a change of the user between this request's read and save
+        Answer<?> repositoryAnswer = Mockito.mockingDetails (userRepository).getMockCreationSettings ().getDefaultAnswer ();
+        doAnswer (invocation -> {
+            Object read = repositoryAnswer.answer (invocation);
+            transactionTemplate.executeWithoutResult (status -> entityManager
+                    .createQuery ("UPDATE User u SET u.version = u.version + 1 WHERE u.id = :id")
+                    .setParameter ("id", user.getId ())
+                    .executeUpdate ());
+            return read;
+        }).when (userRepository).findById (user.getId ());
+
+        DomainException conflict = assertThrows (DomainException.class, () -> userService.switchRole (user.getId ()));
+
+        assertEquals (HttpStatus.CONFLICT, conflict.getStatus ());
+        assertEquals (user.getRole (), userService.getCurrentPrincipal (user.getId ()).getRole ());
+    }
+
+
+
+    private static RegisterRequest request (String username) {
+
+        return RegisterRequest.builder ()
+                .username (username)
+                .password ("123456")
+                .country (Country.BULGARIA)
+                .build ();
+    }
+}
@@ -0,0 +1,121 @@
+package app.wallet.repository;
+
+import app.money.Money;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.wallet.model.Wallet;
+import app.wallet.model.WalletStatus;
+import app.web.dto.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class WalletRepositoryTest {
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+
+    @Test
+    void debit_moreThanTheBalance_changesNothing () {
+
+        UUID walletId = newWallet ("debit-overdraw");
+
+        assertEquals (0, debit (walletId, Money.ofMinor (2001)));
+        assertEquals (Money.ofMinor (2000), balanceOf (walletId));
+    }
+
+
+    @Test
+    void debit_theWholeBalance_leavesZero () {
+
+        UUID walletId = newWallet ("debit-whole");
+
+        assertEquals (1, debit (walletId, Money.ofMinor (2000)));
+        assertEquals (Money.ZERO, balanceOf (walletId));
+    }
+
+
+    @Test
+    void debit_and_credit_ofAnInactiveWallet_changeNothing () {
+
+        UUID walletId = newWallet ("debit-inactive");
+        Wallet wallet = walletRepository.findById (walletId).orElseThrow ();
+        wallet.setStatus (WalletStatus.INACTIVE);
+        walletRepository.save (wallet);
+
+        assertEquals (0, debit (walletId, Money.ofMinor (1)));
+        assertEquals (0, credit (walletId, Money.ofMinor (1)));
+        assertEquals (Money.ofMinor (2000), balanceOf (walletId));
+    }
+
+
+    @Test
+    void findActiveWalletsByOwnerUsernames_listsThePrimaryWalletFirst () {
+
+        UUID newerWalletId = newWallet ("bulk-primary");
+        Wallet newerWallet = walletRepository.findById (newerWalletId).orElseThrow ();
+        UUID olderWalletId = walletRepository.save (Wallet.builder ()
+                .owner (newerWallet.getOwner ())
+                .status (WalletStatus.ACTIVE)
+                .balance (Money.ZERO)
+                .currency (newerWallet.getCurrency ())
+                .createdOn (newerWallet.getCreatedOn ().minusDays (1))
+                .updatedOn (newerWallet.getCreatedOn ().minusDays (1))
+                .build ()).getId ();
+
+        UUID primaryWalletId = walletRepository.findPrimaryActiveWallet ("bulk-primary", PageRequest.of (0, 1)).get (0).walletId ();
+
+        assertEquals (olderWalletId, primaryWalletId);
+        assertEquals (primaryWalletId, walletRepository.findActiveWalletsByOwnerUsernames (List.of ("bulk-primary")).get (0).getWalletId ());
+    }
+
+
+
+    private UUID newWallet (String username) {
+
+        User user = userService.register (RegisterRequest.builder ()
+                .username (username)
+                .password ("123456")
+                .country (Country.BULGARIA)
+                .build ());
+
+        return walletRepository.findAllByOwnerIdOrderByCreatedOnDesc (user.getId ()).get (0).getId ();
+    }
+
+
+    private int debit (UUID walletId, Money amount) {
+
+        return transactionTemplate.execute (status -> walletRepository.debit (walletId, amount, LocalDateTime.now ()));
+    }
+
+
+    private int credit (UUID walletId, Money amount) {
+
+        return transactionTemplate.execute (status -> walletRepository.credit (walletId, amount, LocalDateTime.now ()));
+    }
+
+
+    private Money balanceOf (UUID walletId) {
+
+        return walletRepository.findBalanceById (walletId).orElseThrow ().getBalance ();
+    }
+}
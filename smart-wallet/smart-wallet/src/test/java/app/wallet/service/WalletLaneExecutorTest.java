@@ -0,0 +1,61 @@
+package app.wallet.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "domain.wallet.properties.lanes.enabled=true")
+@ActiveProfiles("test")
+class WalletLaneExecutorTest {
+
+    @Autowired
+    private WalletLaneExecutor walletLaneExecutor;
+
+
+    // The batch is committed before the failing callback runs -> every caller gets its result, nothing is replayed
+    @Test
+    void failingAfterCommitCallback_neitherFailsNorReplaysTheBatch () throws Exception {
+
+        UUID walletId = UUID.randomUUID ();
+        AtomicInteger applied = new AtomicInteger ();
+        int mutations = 20;
+
+        ExecutorService executor = Executors.newFixedThreadPool (8);
+        List<Future<Integer>> results = new ArrayList<> ();
+        try {
+            for (int i = 0; i < mutations; i++) {
+                results.add (executor.submit (() -> walletLaneExecutor.execute (walletId, () -> {
+                    TransactionSynchronizationManager.registerSynchronization (new TransactionSynchronization () {
+                        @Override
+                        public void afterCommit () {
+                            throw new IllegalStateException ("Post commit hook failed.");
+                        }
+                    });
+                    return applied.incrementAndGet ();
+                })));
+            }
+
+            for (Future<Integer> result : results) {
+                result.get (30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow ();
+        }
+
+        assertEquals (mutations, applied.get ());
+    }
+}
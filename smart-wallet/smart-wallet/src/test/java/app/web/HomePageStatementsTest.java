@@ -0,0 +1,46 @@
+package app.web;
+
+import app.support.SqlStatements;
+import app.user.model.Country;
+import app.user.model.User;
+import app.user.service.UserService;
+import app.web.dto.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HomePageStatementsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+
+    // Session principal, user, latest wallet, latest subscription -> a new lazy association on the page shows up here
+    @Test
+    void homePage_staysWithinItsStatementBudget () throws Throwable {
+
+        User user = userService.register (RegisterRequest.builder ()
+                .username ("home-page")
+                .password ("123456")
+                .country (Country.BULGARIA)
+                .build ());
+
+        MockHttpSession session = new MockHttpSession ();
+        session.setAttribute ("user_id", user.getId ());
+
+        SqlStatements.assertAtMost (4, () -> mockMvc.perform (get ("/home").session (session)).andExpect (status ().isOk ()));
+    }
+}